@@ -0,0 +1,38 @@
+package com.goalsapp.service;
+
+import com.goalsapp.GoalsAppApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application against a private in-memory H2 database for benchmarks
+ * that need real repositories.
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {}
+
+    static ConfigurableApplicationContext start(String database) {
+        return start(database, true);
+    }
+
+    /**
+     * @param hibernateCaches whether the second-level and query caches stay on, as in
+     *        the application; without them every read goes to H2
+     */
+    static ConfigurableApplicationContext start(String database, boolean hibernateCaches) {
+        return new SpringApplicationBuilder(GoalsAppApplication.class)
+                // the security filter chain needs a servlet context; bind to a random port
+                .web(WebApplicationType.SERVLET)
+                // command-line arguments, so they win over application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + hibernateCaches,
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=" + hibernateCaches,
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--OPENAI_API_KEY=");
+    }
+}
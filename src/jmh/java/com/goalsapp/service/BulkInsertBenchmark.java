@@ -0,0 +1,70 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.GoalItemRepository;
+import com.goalsapp.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing a list of items with one batched {@link GoalService#addAll} call
+ * versus one {@link GoalService#add} call per item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    @Param({"10", "100", "500"})
+    int items;
+
+    ConfigurableApplicationContext context;
+    GoalService goalService;
+    GoalItemRepository goalRepo;
+    User user;
+    List<String> texts;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start("bulk");
+        goalService = context.getBean(GoalService.class);
+        goalRepo = context.getBean(GoalItemRepository.class);
+        user = context.getBean(UserRepository.class).save(new User("bench", "hash"));
+        texts = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            texts.add("Imported goal " + i);
+        }
+    }
+
+    /** Keeps the table from growing across iterations. */
+    @TearDown(Level.Iteration)
+    public void clear() {
+        goalRepo.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int addAll() {
+        return goalService.addAll(user, Category.TODO, texts).size();
+    }
+
+    @Benchmark
+    public int addOneByOne() {
+        for (String text : texts) {
+            goalService.add(user, Category.TODO, text);
+        }
+        return texts.size();
+    }
+}
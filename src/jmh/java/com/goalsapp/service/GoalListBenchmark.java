@@ -0,0 +1,87 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GoalItem;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.GoalItemRepository;
+import com.goalsapp.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a category list from an in-memory H2 database through the real
+ * Spring/Hibernate stack: the {@link GoalItemView} projection used by
+ * {@link GoalService#list}, the entity query it replaced, and one keyset page.
+ *
+ * <p>
+ * The projection, the page and the count behind it are cacheable queries, while the
+ * entity query is not. With {@code hibernateCaches=false} the second-level and query
+ * caches are off and all three read from H2, so that run compares the queries
+ * themselves. With {@code hibernateCaches=true} (the application's setting) the list
+ * and the page are answered from the query cache after the first call, and show what
+ * a repeated read of an unchanged list costs.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GoalListBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int items;
+
+    @Param({"false", "true"})
+    boolean hibernateCaches;
+
+    ConfigurableApplicationContext context;
+    GoalService goalService;
+    GoalItemRepository goalRepo;
+    TransactionTemplate readOnly;
+    User user;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start("list", hibernateCaches);
+        goalService = context.getBean(GoalService.class);
+        goalRepo = context.getBean(GoalItemRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        user = context.getBean(UserRepository.class).save(new User("bench", "hash"));
+        List<String> texts = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            texts.add("Goal number " + i + ": practise for 20 minutes");
+        }
+        goalService.addAll(user, Category.TODO, texts);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<GoalItemView> listViews() {
+        return goalService.list(user, Category.TODO);
+    }
+
+    @Benchmark
+    public List<GoalItem> listEntities() {
+        return readOnly.execute(status -> goalRepo.findByUserAndCategoryOrderByCreatedAtDesc(user, Category.TODO));
+    }
+
+    @Benchmark
+    public GoalPage firstPage() {
+        return goalService.page(user, Category.TODO, null, 50);
+    }
+}
@@ -0,0 +1,73 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.entity.Category;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt assembly for a guidance request: estimating tokens, rendering the item list
+ * within its budget, filling the category template and hashing the cache key, across
+ * list sizes. With the default budget the 1000-item list goes through compaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBenchmark {
+
+    private static final String SYSTEM_PROMPT =
+            "You are a warm, practical coach. Give specific, encouraging, actionable advice.";
+
+    @Param({"1", "10", "100", "1000"})
+    int items;
+
+    PromptBuilder prompts;
+    List<GoalItemView> views;
+    String renderedItems;
+
+    @Setup
+    public void setUp() {
+        prompts = new PromptBuilder(1500, 1500, 1500, 1500, 200);
+        views = new ArrayList<>(items);
+        Instant now = Instant.now();
+        for (int i = 0; i < items; i++) {
+            views.add(new GoalItemView((long) i, "Goal number " + i + ": practise for 20 minutes", now));
+        }
+        renderedItems = prompts.itemList(Category.SHORT_TERM, views);
+    }
+
+    @Benchmark
+    public int estimateTokens() {
+        return TokenEstimator.estimate(renderedItems);
+    }
+
+    @Benchmark
+    public String renderItems() {
+        return prompts.itemList(Category.SHORT_TERM, views);
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return prompts.prompt(Category.SHORT_TERM, renderedItems);
+    }
+
+    @Benchmark
+    public String cacheKey() {
+        return GuidanceCache.key(SYSTEM_PROMPT, "gpt-4.1-mini", Category.SHORT_TERM, renderedItems);
+    }
+
+    /** Everything {@code getGuidance} does before the cache lookup. */
+    @Benchmark
+    public String fullPreparation() {
+        String list = prompts.itemList(Category.SHORT_TERM, views);
+        prompts.prompt(Category.SHORT_TERM, list);
+        return GuidanceCache.key(SYSTEM_PROMPT, "gpt-4.1-mini", Category.SHORT_TERM, list);
+    }
+}
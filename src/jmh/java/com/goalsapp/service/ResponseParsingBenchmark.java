@@ -0,0 +1,77 @@
+package com.goalsapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of Responses API answers, both the whole-body JSON used by
+ * {@code getGuidance} and the event stream used by {@code streamGuidance}.
+ *
+ * <p>
+ * {@link #mapTree()} is the previous approach (bind the whole body to a {@code Map},
+ * then walk {@code output[0].content[0].text}) and serves as the baseline for
+ * {@link #streaming()}, which uses {@link ResponsesApiParser}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    /** Length of the guidance text in characters. */
+    @Param({"500", "4000", "16000", "64000"})
+    int textChars;
+
+    final ObjectMapper json = new ObjectMapper();
+
+    GuidanceClient client;
+    byte[] body;
+    byte[] eventStream;
+
+    @Setup
+    public void setUp() {
+        client = new GuidanceClient(null, null, null, new GuidanceMetrics(new SimpleMeterRegistry()), null, null, null, "SYSTEM");
+        String text = ResponsesPayloads.guidanceText(textChars);
+        body = ResponsesPayloads.response(text).getBytes(StandardCharsets.UTF_8);
+        eventStream = ResponsesPayloads.eventStream(text, 4).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Reads from a stream, as RestClient's message converter does. */
+    @Benchmark
+    public String mapTree() throws IOException {
+        return walk(json.readValue(new ByteArrayInputStream(body), Map.class));
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        return client.extractText(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public String readEventStream(Blackhole deltas) throws IOException {
+        return client.readStream(new ByteArrayInputStream(eventStream), deltas::consume).text();
+    }
+
+    private static String walk(Map<?, ?> resp) {
+        if (resp.get("output") instanceof List<?> output && !output.isEmpty()
+                && output.get(0) instanceof Map<?, ?> first
+                && first.get("content") instanceof List<?> content && !content.isEmpty()
+                && content.get(0) instanceof Map<?, ?> part
+                && part.get("text") instanceof String text) {
+            return text;
+        }
+        return GuidanceClient.UNPARSEABLE_RESPONSE;
+    }
+}
@@ -0,0 +1,101 @@
+package com.goalsapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Realistic Responses API bodies for the parsing benchmarks.
+ */
+final class ResponsesPayloads {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private ResponsesPayloads() {}
+
+    /** Guidance-like text of roughly {@code chars} characters. */
+    static String guidanceText(int chars) {
+        String line = "- Week 1: break the goal into small steps and schedule 30 minutes a day 💗\n";
+        StringBuilder text = new StringBuilder("Here is a plan for your goals:\n");
+        while (text.length() < chars) {
+            text.append(line);
+        }
+        return text.toString();
+    }
+
+    /** A complete non-streaming response, shaped like the ones returned by {@code POST /v1/responses}. */
+    static String response(String text) {
+        return """
+                {
+                  "id": "resp_67ccd2bed1ec8190b14f964abc0542670bb6a6b452d3795b",
+                  "object": "response",
+                  "created_at": 1741476542,
+                  "status": "completed",
+                  "error": null,
+                  "incomplete_details": null,
+                  "instructions": null,
+                  "max_output_tokens": null,
+                  "model": "gpt-4.1-mini-2025-04-14",
+                  "output": [
+                    {
+                      "type": "message",
+                      "id": "msg_67ccd2bf17f0819081ff3bb2cf6508e60bb6a6b452d3795b",
+                      "status": "completed",
+                      "role": "assistant",
+                      "content": [
+                        {
+                          "type": "output_text",
+                          "text": %s,
+                          "annotations": []
+                        }
+                      ]
+                    }
+                  ],
+                  "parallel_tool_calls": true,
+                  "previous_response_id": null,
+                  "reasoning": {"effort": null, "summary": null},
+                  "store": true,
+                  "temperature": 1.0,
+                  "text": {"format": {"type": "text"}},
+                  "tool_choice": "auto",
+                  "tools": [],
+                  "top_p": 1.0,
+                  "truncation": "disabled",
+                  "usage": {
+                    "input_tokens": 328,
+                    "input_tokens_details": {"cached_tokens": 0},
+                    "output_tokens": 812,
+                    "output_tokens_details": {"reasoning_tokens": 0},
+                    "total_tokens": 1140
+                  },
+                  "user": null,
+                  "metadata": {}
+                }
+                """.formatted(quote(text));
+    }
+
+    /** The same answer as a {@code stream=true} event stream, a few characters per delta. */
+    static String eventStream(String text, int charsPerDelta) {
+        StringBuilder sse = new StringBuilder();
+        sse.append("event: response.created\n")
+                .append("data: {\"type\":\"response.created\",\"response\":{\"id\":\"resp_1\",\"status\":\"in_progress\"}}\n\n");
+        for (int i = 0; i < text.length(); i += charsPerDelta) {
+            String delta = text.substring(i, Math.min(text.length(), i + charsPerDelta));
+            sse.append("event: response.output_text.delta\n")
+                    .append("data: {\"type\":\"response.output_text.delta\",\"item_id\":\"msg_1\",")
+                    .append("\"output_index\":0,\"content_index\":0,\"delta\":")
+                    .append(quote(delta))
+                    .append("}\n\n");
+        }
+        sse.append("event: response.completed\n")
+                .append("data: {\"type\":\"response.completed\",\"response\":{\"id\":\"resp_1\",\"status\":\"completed\"}}\n\n");
+        return sse.toString();
+    }
+
+    private static String quote(String s) {
+        try {
+            return JSON.writeValueAsString(s);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.goalsapp.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a Spring bean method whose latency should be recorded as a Micrometer timer.
+ *
+ * <p>
+ * Handled by {@link TimedOperationAspect}. Each call is recorded under
+ * {@link #value()}, tagged with the class, the method and the exception
+ * thrown (or {@code none}).
+ * </p>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface TimedOperation {
+
+    /** Metric name, e.g. {@code guidance.request}. */
+    String value();
+
+    /** Optional human-readable description of the metric. */
+    String description() default "";
+}
@@ -0,0 +1,42 @@
+package com.goalsapp.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.*;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the latency of every {@link TimedOperation} method as a timer with a
+ * percentile histogram, so dashboards get p50/p95/p99 instead of single samples.
+ */
+@Aspect
+@Component
+public class TimedOperationAspect {
+
+    private final MeterRegistry registry;
+
+    public TimedOperationAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@annotation(timed)")
+    public Object time(ProceedingJoinPoint pjp, TimedOperation timed) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return pjp.proceed();
+        } catch (Throwable t) {
+            exception = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            sample.stop(Timer.builder(timed.value())
+                    .description(timed.description().isEmpty() ? null : timed.description())
+                    .tag("class", pjp.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", pjp.getSignature().getName())
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.goalsapp.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Shared HTTP client for calls to the AI endpoint.
+ *
+ * <p>
+ * A single JDK {@link HttpClient} is reused for every guidance request, so
+ * connections are kept alive and, where the endpoint supports it, multiplexed
+ * over HTTP/2. Connect and read timeouts come from {@code ai.http.*}; the total
+ * time of a call is bounded separately by {@code ai.http.total-timeout} in
+ * {@link com.goalsapp.service.GuidanceService}.
+ * </p>
+ *
+ * <p>
+ * How many calls use the client at once is bounded by
+ * {@code ai.guidance.bulkhead.max-in-flight}: every call goes through the
+ * {@link com.goalsapp.service.GuidanceBulkhead}, and each holds at most one
+ * connection (or one HTTP/2 stream). The JDK only offers JVM-wide settings for its
+ * idle-connection cache and keep-alive timeout, so those are launch flags
+ * ({@code -Djdk.httpclient.*}, see the README) rather than properties of this bean.
+ * </p>
+ */
+@Configuration
+public class AiHttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public HttpClient aiHttpClient(@Value("${ai.http.version:HTTP_2}") HttpClient.Version version,
+                                   @Value("${ai.http.connect-timeout:5s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Bean
+    public RestClient aiRestClient(@Qualifier("aiHttpClient") HttpClient aiHttpClient,
+                                   @Value("${ai.http.read-timeout:60s}") Duration readTimeout,
+                                   @Value("${ai.http.compression:true}") boolean compression) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(aiHttpClient);
+        requestFactory.setReadTimeout(readTimeout);
+
+        RestClient.Builder builder = RestClient.builder()
+                .requestFactory(requestFactory)
+                .requestInterceptor(new ReadTimeoutInterceptor());
+        if (compression) {
+            builder.requestInterceptor(new GzipResponseInterceptor());
+        }
+        return builder.build();
+    }
+}
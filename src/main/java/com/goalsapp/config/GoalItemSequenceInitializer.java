@@ -0,0 +1,58 @@
+package com.goalsapp.config;
+
+import com.goalsapp.entity.GoalItem;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the goal item id sequence ahead of the ids already stored.
+ *
+ * <p>
+ * Goal ids used to come from an identity column. In a database created before the
+ * switch to the pooled {@code goal_items_seq} sequence, the new sequence would hand
+ * out ids that already exist, so on startup it is restarted above the highest
+ * existing id. Nothing is changed when the sequence is already ahead.
+ * </p>
+ *
+ * <p>
+ * This is H2-only: the sequence is read from H2's {@code information_schema.sequences}.
+ * Identity-era databases only ever existed as the bundled H2 file, so on any other
+ * database (checked through the Hibernate dialect) nothing is done, and the schema
+ * is expected to come from a migration that creates the sequence in the right place.
+ * </p>
+ */
+@Component
+public class GoalItemSequenceInitializer {
+
+    private final JdbcTemplate jdbc;
+    private final boolean h2;
+
+    /**
+     * @param entityManagerFactory injected so the schema (and the sequence) exists first
+     * @param jdbc used to read and restart the sequence
+     */
+    public GoalItemSequenceInitializer(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.h2 = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof H2Dialect;
+    }
+
+    @PostConstruct
+    public void alignSequence() {
+        if (!h2) return;
+
+        long maxId = jdbc.queryForObject("select coalesce(max(id), 0) from goal_items", Long.class);
+        Long next = jdbc.queryForObject(
+                "select base_value from information_schema.sequences where sequence_name = 'GOAL_ITEMS_SEQ'",
+                Long.class);
+
+        // the pooled optimizer uses (value - allocationSize, value] for each value it draws
+        if (next != null && next - GoalItem.ID_ALLOCATION_SIZE < maxId) {
+            jdbc.execute("alter sequence goal_items_seq restart with " + (maxId + GoalItem.ID_ALLOCATION_SIZE));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.goalsapp.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Asks for gzip-compressed responses and transparently decompresses them.
+ *
+ * <p>
+ * The JDK {@link java.net.http.HttpClient} neither advertises nor decodes
+ * {@code Content-Encoding}, so without this large answers travel uncompressed.
+ * </p>
+ */
+class GzipResponseInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        if (!request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        }
+        ClientHttpResponse response = execution.execute(request, body);
+        return "gzip".equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                ? new GunzippedResponse(response)
+                : response;
+    }
+
+    private static final class GunzippedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final HttpHeaders headers;
+        private InputStream body;
+
+        GunzippedResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+            // the decoded body has neither the original encoding nor its length
+            HttpHeaders copy = new HttpHeaders();
+            copy.putAll(delegate.getHeaders());
+            copy.remove(HttpHeaders.CONTENT_ENCODING);
+            copy.remove(HttpHeaders.CONTENT_LENGTH);
+            this.headers = HttpHeaders.readOnlyHttpHeaders(copy);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new GZIPInputStream(delegate.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
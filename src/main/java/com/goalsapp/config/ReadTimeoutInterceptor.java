@@ -0,0 +1,36 @@
+package com.goalsapp.config;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Reports a read timeout of the JDK request factory as an {@link HttpTimeoutException}.
+ *
+ * <p>
+ * {@link org.springframework.http.client.JdkClientHttpRequestFactory} enforces its
+ * read timeout by cancelling the pending response. Depending on timing, the
+ * cancellation surfaces as a bare {@link CancellationException}, which
+ * {@link org.springframework.web.client.RestClient} does not translate, instead of
+ * the usual {@code ResourceAccessException}.
+ * </p>
+ */
+class ReadTimeoutInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        try {
+            return execution.execute(request, body);
+        } catch (CancellationException e) {
+            HttpTimeoutException timeout = new HttpTimeoutException("Request timed out");
+            timeout.initCause(e);
+            throw timeout;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.goalsapp.config;
 
 import com.goalsapp.repository.UserRepository;
+import com.goalsapp.service.AuthenticatedUser;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.userdetails.*;
@@ -25,6 +26,11 @@ public class SecurityConfig {
      * Provides a {@link UserDetailsService} backed by the application's
      * {@link com.goalsapp.repository.UserRepository}.
      *
+     * <p>
+     * The loaded {@link AuthenticatedUser} carries the user's id into the security
+     * context, so requests after login need no further lookup by username.
+     * </p>
+     *
      * @param userRepo repository used to load users by username
      * @return a {@link UserDetailsService} implementation
      *
@@ -33,10 +39,7 @@ public class SecurityConfig {
     @Bean
     public UserDetailsService userDetailsService(UserRepository userRepo) {
         return username -> userRepo.findByUsername(username)
-                .map(u -> User.withUsername(u.getUsername())
-                        .password(u.getPasswordHash())
-                        .roles("USER")
-                        .build())
+                .map(AuthenticatedUser::of)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
@@ -54,8 +57,9 @@ public class SecurityConfig {
      * Configures the HTTP security filter chain.
      *
      * <p>
-     * Public endpoints include home, login, registration, and the H2 console.
-     * All other requests require authentication.
+     * Public endpoints include home, login, registration, the H2 console and the
+     * stylesheets and scripts the public pages link. All other requests require
+     * authentication.
      * </p>
      *
      * @param http the {@link HttpSecurity} to configure
@@ -66,6 +70,7 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.authorizeHttpRequests(auth -> auth
                         .requestMatchers("/", "/login", "/register", "/h2/**").permitAll()
+                        .requestMatchers("/css/**", "/js/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
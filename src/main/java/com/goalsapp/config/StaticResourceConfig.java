@@ -0,0 +1,153 @@
+package com.goalsapp.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Serves the shared stylesheets and scripts under {@code /css/**} and {@code /js/**}
+ * with content-hash fingerprints.
+ *
+ * <p>
+ * Templates link assets as {@code @{/css/app.css}}; the resource URL encoding filter
+ * (on while {@code spring.web.resources.chain.enabled} is set) rewrites that link to
+ * {@code /css/app-<md5 of the file>.css}. A fingerprinted URL never changes content,
+ * so it is served as {@code public, immutable} for {@code goals.static.max-age}, and
+ * browsers fetch an asset again only after a deploy changes it.
+ * </p>
+ *
+ * <p>
+ * The plain, unversioned path still resolves for anything that links it directly,
+ * but its content changes with every deploy, so it is served as {@code no-cache}:
+ * browsers may keep a copy but check it ({@code Last-Modified}) before each use.
+ * </p>
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    private final CacheControl fingerprinted;
+
+    public StaticResourceConfig(@Value("${goals.static.max-age:365d}") Duration maxAge) {
+        this.fingerprinted = CacheControl.maxAge(maxAge).cachePublic().immutable();
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        fingerprinted(registry, "css");
+        fingerprinted(registry, "js");
+    }
+
+    private void fingerprinted(ResourceHandlerRegistry registry, String folder) {
+        registry.addResourceHandler("/" + folder + "/**")
+                .addResourceLocations("classpath:/static/" + folder + "/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new ImmutableVersionResolver(fingerprinted.getHeaderValue())
+                        .addContentVersionStrategy("/**"));
+    }
+
+    /**
+     * Resolves fingerprinted paths as {@link VersionResourceResolver} does, and marks
+     * what it finds that way as immutable. The handler applies its own cache control
+     * first and resource headers after, so the mark wins for those paths only.
+     */
+    static class ImmutableVersionResolver extends VersionResourceResolver {
+
+        private final String cacheControl;
+
+        ImmutableVersionResolver(String cacheControl) {
+            this.cacheControl = cacheControl;
+        }
+
+        @Override
+        protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                                   List<? extends Resource> locations, ResourceResolverChain chain) {
+            Resource plain = chain.resolveResource(request, requestPath, locations);
+            if (plain != null) {
+                return plain;
+            }
+            Resource versioned = super.resolveResourceInternal(request, requestPath, locations, chain);
+            return versioned != null ? new ImmutableResource(versioned, cacheControl) : null;
+        }
+    }
+
+    /** A fingerprinted asset, with the headers of the resolved resource plus {@code Cache-Control}. */
+    private static final class ImmutableResource extends AbstractResource implements HttpResource {
+
+        private final Resource original;
+        private final String cacheControl;
+
+        ImmutableResource(Resource original, String cacheControl) {
+            this.original = original;
+            this.cacheControl = cacheControl;
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (original instanceof HttpResource http) {
+                headers.putAll(http.getResponseHeaders());
+            }
+            headers.setCacheControl(cacheControl);
+            return headers;
+        }
+
+        @Override
+        public boolean exists() { return original.exists(); }
+
+        @Override
+        public boolean isReadable() { return original.isReadable(); }
+
+        @Override
+        public boolean isOpen() { return original.isOpen(); }
+
+        @Override
+        public boolean isFile() { return original.isFile(); }
+
+        @Override
+        public URL getURL() throws IOException { return original.getURL(); }
+
+        @Override
+        public URI getURI() throws IOException { return original.getURI(); }
+
+        @Override
+        public File getFile() throws IOException { return original.getFile(); }
+
+        @Override
+        public long contentLength() throws IOException { return original.contentLength(); }
+
+        @Override
+        public long lastModified() throws IOException { return original.lastModified(); }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return original.createRelative(relativePath);
+        }
+
+        @Override
+        public String getFilename() { return original.getFilename(); }
+
+        @Override
+        public String getDescription() { return original.getDescription(); }
+
+        @Override
+        public InputStream getInputStream() throws IOException { return original.getInputStream(); }
+    }
+}
@@ -1,15 +1,45 @@
 package com.goalsapp.controller;
 
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.dto.GuidanceJobView;
 import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GoalItem;
 import com.goalsapp.entity.User;
+import com.goalsapp.service.GoalCountService;
+import com.goalsapp.service.GoalCursor;
+import com.goalsapp.service.GoalListVersions;
+import com.goalsapp.service.GoalPage;
 import com.goalsapp.service.GoalService;
+import com.goalsapp.service.GuidanceHistoryPage;
+import com.goalsapp.service.GuidanceHistoryService;
+import com.goalsapp.service.GuidanceJobService;
 import com.goalsapp.service.GuidanceService;
 import com.goalsapp.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Controller responsible for managing goal-related pages and actions.
@@ -17,54 +47,341 @@ import java.security.Principal;
  * <p>
  * Handles listing goals by category, adding new goals,
  * and displaying AI-generated guidance.
+ * Item counts for the nav badges and the overview page come from
+ * {@link GoalCountService}, so no list is loaded just to be counted.
+ * Lists are shown one keyset page at a time ({@code goals.page-size} items);
+ * further pages are loaded with the opaque {@code after} cursor.
+ * Category pages carry an ETag and Last-Modified from {@link GoalListVersions}, so a
+ * browser revisiting an unchanged list gets a 304 without any query or rendering.
+ * </p>
+ *
+ * <p>
+ * Guidance is available both as a classic form POST and as a Server-Sent Events
+ * stream that the page renders token by token. The form POST queues a background
+ * job and redirects back to the category page, which polls the job's status
+ * ({@code /goals/guidance/jobs/{id}}) until the answer is ready.
+ * The overview page can also ask for guidance on every category in one go.
+ * Earlier answers can be browsed per category on the history page
+ * ({@code goals.history.page-size} answers per page).
+ * </p>
+ *
+ * <p>
+ * With JavaScript, the page updates itself from fragments instead of reloading:
+ * adding an item returns just its {@code <li>} (and the new count in the
+ * {@value #ITEM_COUNT_HEADER} header), and asking for guidance without a stream
+ * returns just the guidance card. Forms without JavaScript keep the
+ * POST-redirect-GET endpoints.
+ * </p>
+ *
+ * <p>
+ * The signed-in user is resolved from the id carried by the principal
+ * ({@link UserService#currentUser}), so no request queries the users table.
  * </p>
  */
 @Controller
 @RequestMapping("/goals")
 public class GoalsController {
 
+    static final String ITEM_COUNT_HEADER = "X-Item-Count";
+
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(3);
 
     private final GoalService goalService;
+    private final GoalCountService countService;
     private final GuidanceService guidanceService;
+    private final GuidanceHistoryService historyService;
+    private final GuidanceJobService jobService;
     private final UserService userService;
+    private final GoalListVersions listVersions;
+    private final AsyncTaskExecutor streamExecutor;
+
+    @Value("${goals.page-size:50}")
+    private int pageSize;
+
+    @Value("${goals.history.page-size:10}")
+    private int historyPageSize;
 
     public GoalsController(GoalService goalService,
+                           GoalCountService countService,
                            GuidanceService guidanceService,
-                           UserService userService) {
+                           GuidanceHistoryService historyService,
+                           GuidanceJobService jobService,
+                           UserService userService,
+                           GoalListVersions listVersions,
+                           @Qualifier("applicationTaskExecutor") AsyncTaskExecutor streamExecutor) {
         this.goalService = goalService;
+        this.countService = countService;
         this.guidanceService = guidanceService;
+        this.historyService = historyService;
+        this.jobService = jobService;
         this.userService = userService;
+        this.listVersions = listVersions;
+        this.streamExecutor = streamExecutor;
+    }
+
+    /**
+     * Overview of every category with its item count.
+     */
+    @GetMapping
+    public String dashboard(Principal principal, Model model) {
+        User user = userService.currentUser(principal);
+        addOverview(model, user);
+        return "dashboard";
     }
 
+    /**
+     * Guidance for every category at once (a single AI call), shown on the overview page.
+     */
+    @PostMapping("/guidance")
+    public String fullPlan(Principal principal, Model model) {
+        User user = userService.currentUser(principal);
+        addOverview(model, user);
+        model.addAttribute("plan", guidanceService.getFullPlan(user));
+        return "dashboard";
+    }
+
+    /**
+     * A category's items. With {@code job}, also shows that guidance job: its answer
+     * once finished, otherwise a placeholder the page keeps polling.
+     */
     @GetMapping("/{category}")
     public String categoryPage(@PathVariable Category category,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(required = false) Long job,
                                Principal principal,
+                               ServletWebRequest request,
                                Model model) {
-        User user = userService.findByUsernameOrThrow(principal.getName());
-        model.addAttribute("category", category);
-        model.addAttribute("items", goalService.list(user, category));
+        User user = userService.currentUser(principal);
+        // a job's status changes without any list changing, so its page is never revalidated
+        if (job == null && notModified(request, user)) {
+            return null;
+        }
+        addPage(model, user, category, after);
+        addCounts(model, user, category);
+        if (job != null) {
+            jobService.find(user, job).ifPresent(view -> addJob(model, view));
+        }
         return "category";
     }
 
+    /**
+     * Returns the next page of items as a list fragment, for the page's "Load more" button.
+     */
+    @GetMapping("/{category}/items")
+    public String itemsFragment(@PathVariable Category category,
+                                @RequestParam(required = false) String after,
+                                Principal principal,
+                                Model model) {
+        User user = userService.currentUser(principal);
+        addPage(model, user, category, after);
+        return "category :: items-page";
+    }
+
     @PostMapping("/{category}/add")
     public String addItem(@PathVariable Category category,
                           @RequestParam String text,
                           Principal principal) {
-        User user = userService.findByUsernameOrThrow(principal.getName());
+        User user = userService.currentUser(principal);
         goalService.add(user, category, text);
         return "redirect:/goals/" + category.name();
     }
 
+    /**
+     * Adds an item and returns only its list row, for the page's add form. The
+     * category's new item count comes in the {@value #ITEM_COUNT_HEADER} header, so
+     * the page can update its badges without loading the list again.
+     */
+    @PostMapping("/{category}/items")
+    public String addItemFragment(@PathVariable Category category,
+                                  @RequestParam String text,
+                                  Principal principal,
+                                  HttpServletResponse response,
+                                  Model model) {
+        User user = userService.currentUser(principal);
+        GoalItem saved;
+        try {
+            saved = goalService.add(user, category, text);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        response.setHeader(ITEM_COUNT_HEADER, String.valueOf(countService.count(user, category)));
+
+        model.addAttribute("category", category);
+        model.addAttribute("items", List.of(new GoalItemView(saved.getId(), saved.getText(), saved.getCreatedAt())));
+        model.addAttribute("nextCursor", null);
+        return "category :: items-page";
+    }
+
+    /**
+     * Adds many items at once: one per line, pasted into a text area and/or
+     * uploaded as a plain-text file. Nothing to add, or more than
+     * {@code goals.bulk.max-items} lines, is answered with 400.
+     */
+    @PostMapping("/{category}/bulk")
+    public String addItems(@PathVariable Category category,
+                           @RequestParam(required = false) String texts,
+                           @RequestParam(required = false) MultipartFile file,
+                           Principal principal) throws IOException {
+        User user = userService.currentUser(principal);
+
+        List<String> lines = new ArrayList<>();
+        if (texts != null) {
+            lines.addAll(texts.lines().toList());
+        }
+        if (file != null && !file.isEmpty()) {
+            lines.addAll(new String(file.getBytes(), StandardCharsets.UTF_8).lines().toList());
+        }
+        try {
+            goalService.addAll(user, category, lines);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return "redirect:/goals/" + category.name();
+    }
+
+    /**
+     * Queues guidance for a category and redirects to the category page, which shows
+     * the job until its answer is ready.
+     */
     @PostMapping("/{category}/guidance")
     public String guidanceOnSamePage(@PathVariable Category category,
-                                     Principal principal,
-                                     Model model) {
-        User user = userService.findByUsernameOrThrow(principal.getName());
+                                     Principal principal) {
+        User user = userService.currentUser(principal);
+        GuidanceJobView job = jobService.enqueue(user, category);
+        return "redirect:/goals/" + category.name() + "?job=" + job.id();
+    }
 
+    /**
+     * Queues guidance for a category and returns only the guidance card, for pages
+     * that cannot stream. The card polls the job until its answer is ready.
+     */
+    @PostMapping("/{category}/guidance/card")
+    public String guidanceCard(@PathVariable Category category,
+                               Principal principal,
+                               Model model) {
+        User user = userService.currentUser(principal);
         model.addAttribute("category", category);
-        model.addAttribute("items", goalService.list(user, category));
-        model.addAttribute("guidance", guidanceService.getGuidance(user, category));
+        addJob(model, jobService.enqueue(user, category));
+        return "category :: guidance-card";
+    }
 
-        return "category";
+    /**
+     * Status of one of the user's guidance jobs as JSON, for the category page to poll.
+     */
+    @GetMapping(path = "/guidance/jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public GuidanceJobView guidanceJob(@PathVariable Long id, Principal principal) {
+        User user = userService.currentUser(principal);
+        return jobService.find(user, id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No such guidance job."));
+    }
+
+    /**
+     * Streams guidance for a category as Server-Sent Events.
+     *
+     * <p>
+     * Emits one {@code delta} event per text fragment (JSON {@code {"text": ...}})
+     * followed by a single {@code done} event. The outbound AI call runs on a
+     * task executor, so no servlet thread is held while the model is generating.
+     * </p>
+     */
+    @GetMapping(path = "/{category}/guidance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter guidanceStream(@PathVariable Category category,
+                                     Principal principal) {
+        User user = userService.currentUser(principal);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+
+        streamExecutor.execute(() -> {
+            try {
+                guidanceService.streamGuidance(user, category, delta -> send(emitter,
+                        SseEmitter.event().name("delta").data(Map.of("text", delta), MediaType.APPLICATION_JSON)));
+                send(emitter, SseEmitter.event().name("done").data(""));
+                emitter.complete();
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Earlier guidance for a category, newest first, one keyset page at a time.
+     */
+    @GetMapping("/{category}/history")
+    public String history(@PathVariable Category category,
+                          @RequestParam(required = false) String after,
+                          Principal principal,
+                          Model model) {
+        User user = userService.currentUser(principal);
+        GuidanceHistoryPage page = historyService.page(user, category, decodeCursor(after), historyPageSize);
+
+        model.addAttribute("category", category);
+        model.addAttribute("records", page.records());
+        model.addAttribute("nextCursor", page.hasNext() ? page.next().encode() : null);
+        return "history";
+    }
+
+    /**
+     * Tags the response with the user's list versions and tells whether the client's
+     * copy is still current, in which case a 304 has been prepared.
+     *
+     * <p>
+     * The page also shows every category's count, so the tag covers all of the user's
+     * lists, and the session, whose CSRF token the page's forms carry. Nothing here
+     * reads the database. The page may be kept by the browser only
+     * ({@code private}) and must be revalidated on every use ({@code no-cache}).
+     * </p>
+     */
+    private boolean notModified(ServletWebRequest request, User user) {
+        GoalListVersions.Stamp stamp = listVersions.stamp(user.getId());
+        HttpSession session = request.getRequest().getSession(false);
+        String etag = "W/\"" + stamp.tag()
+                + (session == null ? "" : "." + Integer.toHexString(session.getId().hashCode())) + "\"";
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        return request.checkNotModified(etag, stamp.lastModified().toEpochMilli());
+    }
+
+    private void addPage(Model model, User user, Category category, String after) {
+        GoalPage page = goalService.page(user, category, decodeCursor(after), pageSize);
+
+        model.addAttribute("category", category);
+        model.addAttribute("items", page.items());
+        model.addAttribute("nextCursor", page.hasNext() ? page.next().encode() : null);
+    }
+
+    private static void addJob(Model model, GuidanceJobView job) {
+        model.addAttribute("job", job);
+        if (job.finished()) {
+            model.addAttribute("guidance", job.result());
+        }
+    }
+
+    private static GoalCursor decodeCursor(String after) {
+        try {
+            return GoalCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private void addOverview(Model model, User user) {
+        Map<Category, Long> counts = countService.counts(user);
+        model.addAttribute("counts", counts);
+        model.addAttribute("totalCount", counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    private void addCounts(Model model, User user, Category category) {
+        Map<Category, Long> counts = countService.counts(user);
+        model.addAttribute("counts", counts);
+        model.addAttribute("itemCount", counts.get(category));
+    }
+
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            // the browser went away; GuidanceService stops forwarding deltas but finishes the answer
+            throw new UncheckedIOException(e);
+        }
     }
 }
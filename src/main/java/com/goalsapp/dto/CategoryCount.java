@@ -0,0 +1,12 @@
+package com.goalsapp.dto;
+
+import com.goalsapp.entity.Category;
+
+/**
+ * Number of items a user has in one category.
+ *
+ * @param category the category
+ * @param count how many items it holds
+ */
+public record CategoryCount(Category category, long count) {
+}
@@ -0,0 +1,18 @@
+package com.goalsapp.dto;
+
+import java.time.Instant;
+
+/**
+ * Read-only view of a goal item, holding only what list pages and prompts need.
+ *
+ * <p>
+ * Loaded through constructor-expression queries, so no managed entity,
+ * user proxy or dirty-checking snapshot is created for it.
+ * </p>
+ *
+ * @param id the item id
+ * @param text the item text
+ * @param createdAt when the item was created
+ */
+public record GoalItemView(Long id, String text, Instant createdAt) {
+}
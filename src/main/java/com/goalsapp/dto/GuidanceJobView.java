@@ -0,0 +1,24 @@
+package com.goalsapp.dto;
+
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GuidanceJob;
+
+import java.time.Instant;
+
+/**
+ * The state of a background guidance job, as shown to its owner.
+ *
+ * @param result the guidance, or the message explaining a failure; {@code null} until the job finishes
+ */
+public record GuidanceJobView(Long id, Category category, GuidanceJob.Status status, int attempts,
+                              String result, Instant createdAt, Instant finishedAt) {
+
+    public static GuidanceJobView of(GuidanceJob job) {
+        return new GuidanceJobView(job.getId(), job.getCategory(), job.getStatus(), job.getAttempts(),
+                job.getResult(), job.getCreatedAt(), job.getFinishedAt());
+    }
+
+    public boolean finished() {
+        return status.finished();
+    }
+}
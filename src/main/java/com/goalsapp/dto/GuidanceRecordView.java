@@ -0,0 +1,17 @@
+package com.goalsapp.dto;
+
+import java.time.Instant;
+
+/**
+ * Read-only view of a stored guidance answer, for the history page.
+ *
+ * @param id the record id
+ * @param model the model that generated the answer
+ * @param inputTokens prompt tokens billed
+ * @param outputTokens response tokens billed
+ * @param text the guidance text
+ * @param createdAt when the answer was generated
+ */
+public record GuidanceRecordView(Long id, String model, long inputTokens, long outputTokens,
+                                 String text, Instant createdAt) {
+}
@@ -9,8 +9,19 @@ package com.goalsapp.entity;
  * </p>
  */
 public enum Category {
-    LONG_TERM,
-    SHORT_TERM,
-    TODO,
-    WISH
+    LONG_TERM("🎯", "Long-term"),
+    SHORT_TERM("📅", "Short-term"),
+    TODO("✅", "Todos"),
+    WISH("✨", "Wish list");
+
+    private final String emoji;
+    private final String label;
+
+    Category(String emoji, String label) {
+        this.emoji = emoji;
+        this.label = label;
+    }
+
+    public String getEmoji() { return emoji; }
+    public String getLabel() { return label; }
 }
@@ -1,7 +1,10 @@
 package com.goalsapp.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Represents a single goal item belonging to a user.
@@ -10,12 +13,40 @@ import java.time.Instant;
  * Each goal item is associated with exactly one user and one category,
  * and records the creation timestamp.
  * </p>
+ *
+ * <p>
+ * Lists are always read newest first per user and category, so the table carries a
+ * composite index matching that order; it also backs keyset pagination on
+ * {@code (createdAt, id)}. Timestamps are kept at microsecond precision, the same
+ * precision the database stores, so a cursor taken from an entity matches the row.
+ * </p>
+ *
+ * <p>
+ * Ids come from a pooled sequence rather than an identity column, so Hibernate can
+ * assign ids up front and send inserts in JDBC batches.
+ * </p>
+ *
+ * <p>
+ * Items are kept in the Hibernate second-level cache, and the category listings in
+ * {@link com.goalsapp.repository.GoalItemRepository} in the query cache; Hibernate drops
+ * cached listings whenever the table is written (region bounds in {@code ehcache.xml}).
+ * </p>
  */
 @Entity
-@Table(name = "goal_items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "goal_items", indexes = @Index(
+        name = "idx_goal_items_user_category_created",
+        columnList = "user_id, category, created_at DESC, id DESC"))
 public class GoalItem {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    /** Ids reserved per sequence call; lets Hibernate batch inserts without a round trip per row. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "goal_items_seq")
+    @SequenceGenerator(name = "goal_items_seq", sequenceName = "goal_items_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -26,7 +57,7 @@ public class GoalItem {
     private String text;
 
     @Column(nullable = false)
-    private Instant createdAt = Instant.now();
+    private Instant createdAt = now();
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private User user;
@@ -37,7 +68,11 @@ public class GoalItem {
         this.user = user;
         this.category = category;
         this.text = text;
-        this.createdAt = Instant.now();
+        this.createdAt = now();
+    }
+
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
     }
 
     public Long getId() { return id; }
@@ -0,0 +1,87 @@
+package com.goalsapp.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A request for guidance that is generated in the background.
+ *
+ * <p>
+ * Jobs live in the database, so queued and unfinished work survives a restart.
+ * A job is {@link Status#QUEUED} until a worker claims it, {@link Status#RUNNING}
+ * while the worker holds its lease ({@code leaseUntil}), and ends as
+ * {@link Status#SUCCEEDED} or {@link Status#FAILED} with the text to show in
+ * {@code result}. A retryable failure puts it back in the queue with a later
+ * {@code runAt}; a running job whose lease ran out (its worker died) can be
+ * claimed again.
+ * </p>
+ *
+ * <p>
+ * The {@code (status, run_at)} index serves the workers' search for the next job.
+ * </p>
+ */
+@Entity
+@Table(name = "guidance_jobs", indexes = {
+        @Index(name = "idx_guidance_jobs_status_run_at", columnList = "status, run_at"),
+        @Index(name = "idx_guidance_jobs_user_category", columnList = "user_id, category")
+})
+public class GuidanceJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED;
+
+        public boolean finished() {
+            return this == SUCCEEDED || this == FAILED;
+        }
+    }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Category category;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.QUEUED;
+
+    private int attempts;
+
+    @Column(name = "run_at", nullable = false)
+    private Instant runAt;
+
+    private Instant leaseUntil;
+
+    @Lob
+    private String result;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant finishedAt;
+
+    public GuidanceJob() {}
+
+    public GuidanceJob(User user, Category category, Instant now) {
+        this.user = user;
+        this.category = category;
+        this.createdAt = now.truncatedTo(ChronoUnit.MICROS);
+        this.runAt = this.createdAt;
+    }
+
+    public Long getId() { return id; }
+    public User getUser() { return user; }
+    public Category getCategory() { return category; }
+    public Status getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public Instant getRunAt() { return runAt; }
+    public Instant getLeaseUntil() { return leaseUntil; }
+    public String getResult() { return result; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+}
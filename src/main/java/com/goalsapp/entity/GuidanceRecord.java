@@ -0,0 +1,90 @@
+package com.goalsapp.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A guidance answer that was generated for a user, kept as history.
+ *
+ * <p>
+ * Each record stores the content hash of the request it answered (the same key the
+ * in-memory guidance cache uses), so an identical request can be answered from the
+ * database after a restart or on another node instead of calling the AI endpoint again.
+ * The model and the billed prompt/response tokens are kept alongside the text, and,
+ * for single-category answers, the {@link ResponseChain} a follow-up request can continue.
+ * </p>
+ *
+ * <p>
+ * One index serves the content-hash lookup, another the newest-first history
+ * per user and category (keyset pagination on {@code (createdAt, id)}).
+ * </p>
+ */
+@Entity
+@Table(name = "guidance_records", indexes = {
+        @Index(name = "idx_guidance_records_user_hash", columnList = "user_id, content_hash"),
+        @Index(name = "idx_guidance_records_user_category_created",
+                columnList = "user_id, category, created_at DESC, id DESC")
+})
+public class GuidanceRecord {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Category category;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(nullable = false, length = 80)
+    private String model;
+
+    private long inputTokens;
+
+    private long outputTokens;
+
+    @Lob
+    @Column(nullable = false)
+    private String text;
+
+    @Embedded
+    private ResponseChain chain;
+
+    @Column(nullable = false)
+    private Instant createdAt = now();
+
+    public GuidanceRecord() {}
+
+    public GuidanceRecord(User user, Category category, String contentHash, String model,
+                          long inputTokens, long outputTokens, String text, ResponseChain chain) {
+        this.user = user;
+        this.category = category;
+        this.contentHash = contentHash;
+        this.model = model;
+        this.inputTokens = inputTokens;
+        this.outputTokens = outputTokens;
+        this.text = text;
+        this.chain = chain;
+        this.createdAt = now();
+    }
+
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public Long getId() { return id; }
+    public User getUser() { return user; }
+    public Category getCategory() { return category; }
+    public String getContentHash() { return contentHash; }
+    public String getModel() { return model; }
+    public long getInputTokens() { return inputTokens; }
+    public long getOutputTokens() { return outputTokens; }
+    public String getText() { return text; }
+    public ResponseChain getChain() { return chain; }
+    public Instant getCreatedAt() { return createdAt; }
+}
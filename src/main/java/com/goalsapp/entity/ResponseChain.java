@@ -0,0 +1,58 @@
+package com.goalsapp.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Where a stored answer sits in a chain of Responses API calls.
+ *
+ * <p>
+ * An answer can be continued with {@code previous_response_id}: the next request then
+ * sends only the items added since, instead of the whole list. To know which items
+ * those are, the chain keeps a snapshot of the list the answer covered: the highest
+ * item id and the number of items. {@code basis} identifies the system prompt and model
+ * the chain was started with, {@code length} counts the continuations since the last
+ * full prompt, and {@code startedAt} is when that full prompt was sent.
+ * </p>
+ */
+@Embeddable
+public class ResponseChain {
+
+    @Column(name = "response_id", length = 100)
+    private String responseId;
+
+    @Column(name = "chain_basis", length = 64)
+    private String basis;
+
+    @Column(name = "chain_last_item_id")
+    private Long lastItemId;
+
+    @Column(name = "chain_item_count")
+    private Integer itemCount;
+
+    @Column(name = "chain_length")
+    private Integer length;
+
+    @Column(name = "chain_started_at")
+    private Instant startedAt;
+
+    protected ResponseChain() {}
+
+    public ResponseChain(String responseId, String basis, long lastItemId, int itemCount, int length, Instant startedAt) {
+        this.responseId = responseId;
+        this.basis = basis;
+        this.lastItemId = lastItemId;
+        this.itemCount = itemCount;
+        this.length = length;
+        this.startedAt = startedAt.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public String getResponseId() { return responseId; }
+    public String getBasis() { return basis; }
+    public long getLastItemId() { return lastItemId; }
+    public int getItemCount() { return itemCount; }
+    public int getLength() { return length; }
+    public Instant getStartedAt() { return startedAt; }
+}
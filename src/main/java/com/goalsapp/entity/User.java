@@ -1,6 +1,8 @@
 package com.goalsapp.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Represents an application user.
@@ -9,8 +11,14 @@ import jakarta.persistence.*;
  * Usernames are stored exactly as provided during registration.
  * No trimming or normalization is applied.
  * </p>
+ *
+ * <p>
+ * Users are kept in the Hibernate second-level cache (region bounds in {@code ehcache.xml}).
+ * </p>
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "users")
 public class User {
 
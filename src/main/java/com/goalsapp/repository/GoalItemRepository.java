@@ -1,10 +1,18 @@
 package com.goalsapp.repository;
 
+import com.goalsapp.dto.CategoryCount;
+import com.goalsapp.dto.GoalItemView;
 import com.goalsapp.entity.Category;
 import com.goalsapp.entity.GoalItem;
 import com.goalsapp.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -12,7 +20,57 @@ import java.util.List;
  *
  * Provides query methods for retrieving user goals
  * by category and creation time.
+ *
+ * <p>
+ * Read paths use {@link GoalItemView} projections selected by user id, so listing
+ * a category neither materializes entities nor needs the {@link User} loaded.
+ * Paged reads use keyset (seek) pagination on {@code (createdAt, id)} instead of
+ * offsets, so every page is a bounded range scan of the
+ * {@code (user_id, category, created_at, id)} index no matter how deep the user scrolls.
+ * </p>
+ *
+ * <p>
+ * The listing queries are cacheable: repeated views of an unchanged category are
+ * answered from the Hibernate query cache without SQL. Any insert, update or delete
+ * on {@code goal_items} made through Hibernate invalidates them.
+ * </p>
  */
 public interface GoalItemRepository extends JpaRepository<GoalItem, Long> {
     List<GoalItem> findByUserAndCategoryOrderByCreatedAtDesc(User user, Category category);
+
+    /** All items of a category, newest first, as read-only views. */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+            select new com.goalsapp.dto.GoalItemView(g.id, g.text, g.createdAt) from GoalItem g
+            where g.user.id = :userId and g.category = :category
+            order by g.createdAt desc, g.id desc
+            """)
+    List<GoalItemView> findViews(Long userId, Category category);
+
+    /** First page: the newest items of a category. */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+            select new com.goalsapp.dto.GoalItemView(g.id, g.text, g.createdAt) from GoalItem g
+            where g.user.id = :userId and g.category = :category
+            order by g.createdAt desc, g.id desc
+            """)
+    List<GoalItemView> findFirstPage(Long userId, Category category, Limit limit);
+
+    /** Next page: items strictly older than the given {@code (createdAt, id)} position. */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+            select new com.goalsapp.dto.GoalItemView(g.id, g.text, g.createdAt) from GoalItem g
+            where g.user.id = :userId and g.category = :category
+              and (g.createdAt < :createdAt or (g.createdAt = :createdAt and g.id < :id))
+            order by g.createdAt desc, g.id desc
+            """)
+    List<GoalItemView> findPageAfter(Long userId, Category category, Instant createdAt, Long id, Limit limit);
+
+    /** Item counts of every non-empty category of a user, in one aggregate query. */
+    @Query("""
+            select new com.goalsapp.dto.CategoryCount(g.category, count(g)) from GoalItem g
+            where g.user.id = :userId
+            group by g.category
+            """)
+    List<CategoryCount> countByCategory(Long userId);
 }
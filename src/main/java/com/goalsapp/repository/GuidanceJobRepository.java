@@ -0,0 +1,121 @@
+package com.goalsapp.repository;
+
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GuidanceJob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for background {@link GuidanceJob}s.
+ *
+ * <p>
+ * Workers claim jobs in two steps: {@link #findClaimable} lists candidate ids without
+ * locking anything, and {@link #claim} takes one of them with a single conditional
+ * update. Two workers that pick the same candidate cannot both win: the loser's
+ * update matches no row and it moves on to the next id, much like
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED}.
+ * </p>
+ *
+ * <p>
+ * A running job whose lease ran out is only claimed again while it has attempts
+ * left; {@link #failAbandoned} fails the ones that have none.
+ * </p>
+ *
+ * <p>
+ * The outcome of an attempt is written with a conditional update on the attempt
+ * number as well ({@link #finish}, {@link #requeue}): a worker whose lease ran out
+ * and whose job was claimed again cannot overwrite the newer attempt.
+ * </p>
+ */
+public interface GuidanceJobRepository extends JpaRepository<GuidanceJob, Long> {
+
+    /** Ids of jobs that are due, or whose lease has run out with attempts left, oldest due first. */
+    @Query("""
+            select j.id from GuidanceJob j
+            where (j.status = :queued and j.runAt <= :now)
+               or (j.status = :running and j.leaseUntil < :now and j.attempts < :maxAttempts)
+            order by j.runAt, j.id
+            """)
+    List<Long> findClaimable(GuidanceJob.Status queued, GuidanceJob.Status running, Instant now, int maxAttempts,
+                             Limit limit);
+
+    /**
+     * Takes a job if it is still claimable, counting the attempt and leasing it until {@code leaseUntil}.
+     *
+     * @return {@code 1} if this call claimed the job, {@code 0} if it was no longer claimable
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update GuidanceJob j
+            set j.status = :running, j.attempts = j.attempts + 1, j.leaseUntil = :leaseUntil
+            where j.id = :id
+              and ((j.status = :queued and j.runAt <= :now)
+                or (j.status = :running and j.leaseUntil < :now and j.attempts < :maxAttempts))
+            """)
+    int claim(Long id, GuidanceJob.Status queued, GuidanceJob.Status running, Instant now, int maxAttempts,
+              Instant leaseUntil);
+
+    /**
+     * Ends attempt {@code attempt} of a running job as {@code finished} with {@code result}.
+     *
+     * @return {@code 1} if it did, {@code 0} if the job has moved on (finished, or
+     *         claimed again after its lease ran out)
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update GuidanceJob j
+            set j.status = :finished, j.result = :result, j.finishedAt = :now, j.leaseUntil = null
+            where j.id = :id and j.status = :running and j.attempts = :attempt
+            """)
+    int finish(Long id, int attempt, GuidanceJob.Status running, GuidanceJob.Status finished, String result,
+               Instant now);
+
+    /**
+     * Puts a running job back in the queue after attempt {@code attempt}, to be claimed again from {@code runAt}.
+     *
+     * @return {@code 1} if it did, {@code 0} if the job has moved on
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update GuidanceJob j
+            set j.status = :queued, j.runAt = :runAt, j.leaseUntil = null
+            where j.id = :id and j.status = :running and j.attempts = :attempt
+            """)
+    int requeue(Long id, int attempt, GuidanceJob.Status running, GuidanceJob.Status queued, Instant runAt);
+
+    /**
+     * Fails running jobs whose lease has run out after their last attempt, showing {@code result}.
+     *
+     * @return the number of jobs failed
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update GuidanceJob j
+            set j.status = :failed, j.result = :result, j.finishedAt = :now, j.leaseUntil = null
+            where j.status = :running and j.leaseUntil < :now and j.attempts >= :maxAttempts
+            """)
+    int failAbandoned(GuidanceJob.Status running, GuidanceJob.Status failed, Instant now, int maxAttempts,
+                      String result);
+
+    /** A job together with its user, for the worker that runs it. */
+    @Query("select j from GuidanceJob j join fetch j.user where j.id = :id")
+    Optional<GuidanceJob> findWithUser(Long id);
+
+    Optional<GuidanceJob> findByIdAndUserId(Long id, Long userId);
+
+    /** The user's newest job for a category among the given states. */
+    Optional<GuidanceJob> findFirstByUserIdAndCategoryAndStatusInOrderByIdDesc(Long userId, Category category,
+                                                                               Collection<GuidanceJob.Status> statuses);
+}
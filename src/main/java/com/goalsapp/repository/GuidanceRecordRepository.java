@@ -0,0 +1,68 @@
+package com.goalsapp.repository;
+
+import com.goalsapp.dto.GuidanceRecordView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GuidanceRecord;
+import com.goalsapp.entity.ResponseChain;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository for stored {@link GuidanceRecord}s.
+ *
+ * <p>
+ * The lookups select only the text, so a hit does not materialize the entity.
+ * History pages use the same keyset pagination on {@code (createdAt, id)} as goal lists.
+ * </p>
+ */
+public interface GuidanceRecordRepository extends JpaRepository<GuidanceRecord, Long> {
+
+    boolean existsByUserId(Long userId);
+
+    /** Texts stored for a request's content hash, newest first. */
+    @Query("""
+            select r.text from GuidanceRecord r
+            where r.user.id = :userId and r.contentHash = :contentHash
+            order by r.createdAt desc, r.id desc
+            """)
+    List<String> findTexts(Long userId, String contentHash, Limit limit);
+
+    /** Texts stored for a category, newest first, whatever list they answered. */
+    @Query("""
+            select r.text from GuidanceRecord r
+            where r.user.id = :userId and r.category = :category
+            order by r.createdAt desc, r.id desc
+            """)
+    List<String> findLatestTexts(Long userId, Category category, Limit limit);
+
+    /** Chain of the newest answer of a category; {@code null} elements for answers without one. */
+    @Query("""
+            select r.chain from GuidanceRecord r
+            where r.user.id = :userId and r.category = :category
+            order by r.createdAt desc, r.id desc
+            """)
+    List<ResponseChain> findLatestChains(Long userId, Category category, Limit limit);
+
+    /** First history page: the newest answers of a category. */
+    @Query("""
+            select new com.goalsapp.dto.GuidanceRecordView(r.id, r.model, r.inputTokens, r.outputTokens, r.text, r.createdAt)
+            from GuidanceRecord r
+            where r.user.id = :userId and r.category = :category
+            order by r.createdAt desc, r.id desc
+            """)
+    List<GuidanceRecordView> findFirstPage(Long userId, Category category, Limit limit);
+
+    /** Next history page: answers strictly older than the given {@code (createdAt, id)} position. */
+    @Query("""
+            select new com.goalsapp.dto.GuidanceRecordView(r.id, r.model, r.inputTokens, r.outputTokens, r.text, r.createdAt)
+            from GuidanceRecord r
+            where r.user.id = :userId and r.category = :category
+              and (r.createdAt < :createdAt or (r.createdAt = :createdAt and r.id < :id))
+            order by r.createdAt desc, r.id desc
+            """)
+    List<GuidanceRecordView> findPageAfter(Long userId, Category category, Instant createdAt, Long id, Limit limit);
+}
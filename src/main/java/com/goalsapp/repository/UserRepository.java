@@ -1,14 +1,23 @@
 package com.goalsapp.repository;
 
 import com.goalsapp.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 /**
  * Repository for accessing {@link User} entities.
+ *
+ * <p>
+ * The lookup by username (run at every login) is cacheable, so it resolves from the
+ * query cache and the second-level cache once the user has been loaded.
+ * </p>
  */
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
 }
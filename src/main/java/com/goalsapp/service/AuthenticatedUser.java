@@ -0,0 +1,31 @@
+package com.goalsapp.service;
+
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * The signed-in user as kept in the security context, with the database id of the
+ * {@link com.goalsapp.entity.User}.
+ *
+ * <p>
+ * Carrying the id lets each request refer to its user without looking the username
+ * up again (see {@link UserService#currentUser}). It is stored in the HTTP session,
+ * so it holds only the id, the username and the password hash Spring Security
+ * needs at login.
+ * </p>
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long userId;
+
+    public AuthenticatedUser(Long userId, String username, String passwordHash) {
+        super(username, passwordHash, AuthorityUtils.createAuthorityList("ROLE_USER"));
+        this.userId = userId;
+    }
+
+    public static AuthenticatedUser of(com.goalsapp.entity.User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPasswordHash());
+    }
+
+    public Long getUserId() { return userId; }
+}
@@ -0,0 +1,12 @@
+package com.goalsapp.service;
+
+/**
+ * Thrown by {@link GuidanceBulkhead} when no slot becomes free in time,
+ * or when its wait queue is already full.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
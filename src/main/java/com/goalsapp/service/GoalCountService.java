@@ -0,0 +1,125 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.CategoryCount;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.GoalItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps per-user item counts for every {@link Category}.
+ *
+ * <p>
+ * Counts are loaded once per user with a single {@code GROUP BY category} query and
+ * then kept current by {@link GoalItemsChangedEvent}s, so nav badges and the
+ * dashboard cost a map lookup instead of a query per category. Loaded counts are
+ * refreshed from the database after {@code goals.counts.ttl}, which also heals any
+ * drift from an add racing with the initial load.
+ * </p>
+ *
+ * <p>
+ * Events are applied once the adding transaction has committed, so a rolled-back
+ * import leaves the counts alone. At most {@code goals.counts.max-users} users are
+ * kept (least recently used dropped first), and the count query runs outside the
+ * lock guarding them, so one slow load does not hold up other users.
+ * </p>
+ */
+@Service
+public class GoalCountService {
+
+    private record Counts(AtomicLongArray values, Instant loadedAt) {}
+
+    private final GoalItemRepository goalRepo;
+    private final Duration ttl;
+    private final Clock clock;
+
+    // access-ordered, so iteration starts at the least recently used user
+    private final LinkedHashMap<Long, Counts> countsByUser;
+
+    @Autowired
+    public GoalCountService(GoalItemRepository goalRepo,
+                            @Value("${goals.counts.ttl:10m}") Duration ttl,
+                            @Value("${goals.counts.max-users:10000}") int maxUsers) {
+        this(goalRepo, ttl, maxUsers, Clock.systemUTC());
+    }
+
+    GoalCountService(GoalItemRepository goalRepo, Duration ttl, int maxUsers, Clock clock) {
+        if (maxUsers < 1) {
+            throw new IllegalArgumentException("goals.counts.max-users must be at least 1.");
+        }
+        this.goalRepo = goalRepo;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.countsByUser = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Counts> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Returns the item count of every category for a user, in declaration order.
+     */
+    public Map<Category, Long> counts(User user) {
+        AtomicLongArray values = load(user.getId()).values();
+        Map<Category, Long> result = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            result.put(category, values.get(category.ordinal()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    public long count(User user, Category category) {
+        return load(user.getId()).values().get(category.ordinal());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGoalItemsChanged(GoalItemsChangedEvent event) {
+        // only adjust counts already in memory; an unloaded user is read fresh on first use
+        Counts counts;
+        synchronized (this) {
+            counts = countsByUser.get(event.userId());
+        }
+        if (counts != null) {
+            counts.values().addAndGet(event.category().ordinal(), event.added());
+        }
+    }
+
+    /** Users whose counts are currently held in memory. */
+    public synchronized int size() {
+        return countsByUser.size();
+    }
+
+    private Counts load(Long userId) {
+        Instant now = clock.instant();
+        synchronized (this) {
+            Counts current = countsByUser.get(userId);
+            if (current != null && now.isBefore(current.loadedAt().plus(ttl))) {
+                return current;
+            }
+        }
+        // two requests may both load an expired user; the later result simply wins
+        AtomicLongArray values = new AtomicLongArray(Category.values().length);
+        for (CategoryCount c : goalRepo.countByCategory(userId)) {
+            values.set(c.category().ordinal(), c.count());
+        }
+        Counts loaded = new Counts(values, now);
+        synchronized (this) {
+            countsByUser.put(userId, loaded);
+        }
+        return loaded;
+    }
+}
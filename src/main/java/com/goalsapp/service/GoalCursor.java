@@ -0,0 +1,44 @@
+package com.goalsapp.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a newest-first goal list, used for keyset pagination.
+ *
+ * <p>
+ * A cursor points at the last item of a page; the next page starts with the
+ * first item older than it. Encoded as an opaque, URL-safe token.
+ * Guidance history pages use the same cursor.
+ * </p>
+ *
+ * @param createdAt creation time of the last item on the page
+ * @param id id of the last item on the page (tie-breaker for equal timestamps)
+ */
+public record GoalCursor(Instant createdAt, Long id) {
+
+    public String encode() {
+        String raw = createdAt + "~" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @return the cursor, or {@code null} for a null/blank token (first page)
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static GoalCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('~');
+            if (sep < 0) throw new IllegalArgumentException("Invalid page cursor.");
+            return new GoalCursor(Instant.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor.", e);
+        }
+    }
+}
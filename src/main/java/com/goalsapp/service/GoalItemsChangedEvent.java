@@ -0,0 +1,18 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+
+/**
+ * Published by {@link GoalService} after the items of a user's category change.
+ *
+ * <p>
+ * Listeners use it to drop or refresh anything derived from that list,
+ * such as cached guidance.
+ * </p>
+ *
+ * @param userId the id of the user whose list changed
+ * @param category the category that changed
+ * @param added how many items were added
+ */
+public record GoalItemsChangedEvent(Long userId, Category category, int added) {
+}
@@ -0,0 +1,90 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Version stamps of every user's lists, for conditional GETs of the category pages.
+ *
+ * <p>
+ * Each user and {@link Category} has a number that every {@link GoalItemsChangedEvent}
+ * bumps (once the change has committed), and the time of that change. Stamps live in
+ * memory only: they start at zero for every user, and the {@code epoch} (the start
+ * time) tells stamps from before a restart apart, so an old ETag never matches.
+ * </p>
+ */
+@Service
+public class GoalListVersions {
+
+    /**
+     * A user's list versions.
+     *
+     * @param epoch when the stamps started counting (this application's start)
+     * @param versions one number per category, in declaration order
+     * @param lastModified when any of the user's lists last changed; the epoch if none has
+     */
+    public record Stamp(Instant epoch, long[] versions, Instant lastModified) {
+
+        /** The version of one category's list. */
+        public long version(Category category) {
+            return versions[category.ordinal()];
+        }
+
+        /** The stamp as an entity tag value: epoch and every category's version. */
+        public String tag() {
+            StringBuilder tag = new StringBuilder(Long.toString(epoch.toEpochMilli(), 36));
+            for (long version : versions) {
+                tag.append('.').append(version);
+            }
+            return tag.toString();
+        }
+    }
+
+    /** Replaced, never modified, so a reader always sees versions and time that belong together. */
+    private record UserVersions(long[] versions, Instant lastModified) {}
+
+    private final Clock clock;
+    private final Instant epoch;
+    private final ConcurrentMap<Long, UserVersions> byUser = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GoalListVersions() {
+        this(Clock.systemUTC());
+    }
+
+    GoalListVersions(Clock clock) {
+        this.clock = clock;
+        // HTTP dates have second precision; a finer epoch would never compare as unmodified
+        this.epoch = clock.instant().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * The current stamp of a user's lists.
+     */
+    public Stamp stamp(Long userId) {
+        UserVersions user = byUser.get(userId);
+        if (user == null) {
+            return new Stamp(epoch, new long[Category.values().length], epoch);
+        }
+        return new Stamp(epoch, user.versions().clone(), user.lastModified());
+    }
+
+    /** Bumps the changed list's version after its transaction commits. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGoalItemsChanged(GoalItemsChangedEvent event) {
+        Instant now = clock.instant().truncatedTo(ChronoUnit.SECONDS);
+        byUser.compute(event.userId(), (id, user) -> {
+            long[] versions = user == null ? new long[Category.values().length] : user.versions().clone();
+            versions[event.category().ordinal()]++;
+            return new UserVersions(versions, now);
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GoalItemView;
+
+import java.util.List;
+
+/**
+ * One page of a newest-first goal list.
+ *
+ * @param items the items on this page, newest first
+ * @param next cursor for the following page, or {@code null} if this is the last page
+ */
+public record GoalPage(List<GoalItemView> items, GoalCursor next) {
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
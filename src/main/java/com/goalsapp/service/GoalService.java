@@ -1,12 +1,18 @@
 package com.goalsapp.service;
 
+import com.goalsapp.dto.GoalItemView;
 import com.goalsapp.entity.Category;
 import com.goalsapp.entity.GoalItem;
 import com.goalsapp.entity.User;
 import com.goalsapp.repository.GoalItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Service responsible for managing user goals.
@@ -15,25 +21,103 @@ import java.util.List;
  * Encapsulates business rules related to creating
  * and retrieving goal items.
  * </p>
+ *
+ * <p>
+ * Reads return {@link GoalItemView} projections inside read-only transactions,
+ * so list pages and prompts skip entity materialization and dirty checking.
+ * </p>
  */
 @Service
 public class GoalService {
 
     private final GoalItemRepository goalRepo;
+    private final ApplicationEventPublisher events;
+
+    @Value("${goals.bulk.max-items:1000}")
+    private int maxBulkItems = 1000;
 
-    public GoalService(GoalItemRepository goalRepo) {
+    public GoalService(GoalItemRepository goalRepo, ApplicationEventPublisher events) {
         this.goalRepo = goalRepo;
+        this.events = events;
     }
 
-    public List<GoalItem> list(User user, Category category) {
-        return goalRepo.findByUserAndCategoryOrderByCreatedAtDesc(user, category);
+    @Transactional(readOnly = true)
+    public List<GoalItemView> list(User user, Category category) {
+        return goalRepo.findViews(user.getId(), category);
     }
 
+    /**
+     * Returns one page of a category, newest first, using keyset pagination.
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
+     * @param size maximum number of items on the page
+     * @return the page and, if more items exist, the cursor for the next one
+     */
+    @Transactional(readOnly = true)
+    public GoalPage page(User user, Category category, GoalCursor after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        // fetch one extra row to learn whether another page exists
+        Limit limit = Limit.of(size + 1);
+        List<GoalItemView> rows = after == null
+                ? goalRepo.findFirstPage(user.getId(), category, limit)
+                : goalRepo.findPageAfter(user.getId(), category, after.createdAt(), after.id(), limit);
+
+        if (rows.size() <= size) {
+            return new GoalPage(rows, null);
+        }
+        List<GoalItemView> items = rows.subList(0, size);
+        GoalItemView last = items.get(size - 1);
+        return new GoalPage(List.copyOf(items), new GoalCursor(last.createdAt(), last.id()));
+    }
+
+    /**
+     * Adds a new item to a category and publishes a {@link GoalItemsChangedEvent}.
+     *
+     * @throws IllegalArgumentException if the text is null or blank
+     */
     //TODO: handle exception when empty is sent in the form
     public GoalItem add(User user, Category category, String text) {
         if (text == null || text.trim().isEmpty()) {
             throw new IllegalArgumentException("Text cannot be empty.");
         }
-        return goalRepo.save(new GoalItem(user, category, text.trim()));
+        GoalItem saved = goalRepo.save(new GoalItem(user, category, text.trim()));
+        events.publishEvent(new GoalItemsChangedEvent(user.getId(), category, 1));
+        return saved;
+    }
+
+    /**
+     * Adds many items to a category in one transaction.
+     *
+     * <p>
+     * Texts are trimmed and blank ones skipped. Ids come from the pooled sequence and
+     * inserts are sent in JDBC batches ({@code goals.bulk.batch-size}), so importing
+     * hundreds of items costs a handful of round trips instead of one per item.
+     * A single {@link GoalItemsChangedEvent} is published afterwards.
+     * </p>
+     *
+     * @return the saved items
+     * @throws IllegalArgumentException if no non-blank text is given,
+     *                                  or more than {@code goals.bulk.max-items}
+     */
+    @Transactional
+    public List<GoalItem> addAll(User user, Category category, List<String> texts) {
+        List<GoalItem> items = texts.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(t -> !t.isEmpty())
+                .map(t -> new GoalItem(user, category, t))
+                .toList();
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Text cannot be empty.");
+        }
+        if (items.size() > maxBulkItems) {
+            throw new IllegalArgumentException("At most " + maxBulkItems + " items can be added at once.");
+        }
+
+        List<GoalItem> saved = goalRepo.saveAll(items);
+        events.publishEvent(new GoalItemsChangedEvent(user.getId(), category, saved.size()));
+        return saved;
     }
 }
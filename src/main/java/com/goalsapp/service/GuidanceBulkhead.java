@@ -0,0 +1,211 @@
+package com.goalsapp.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many outbound AI calls run at the same time.
+ *
+ * <p>
+ * At most {@code ai.guidance.bulkhead.max-in-flight} calls run concurrently, each on
+ * its own virtual thread. Up to {@code ai.guidance.bulkhead.max-queue} further callers
+ * may wait (for at most {@code ai.guidance.bulkhead.max-wait}) for a slot; anyone
+ * beyond that is rejected immediately with a {@link BulkheadFullException}, so a
+ * burst of guidance requests cannot starve ordinary page loads. A caller that is
+ * interrupted while waiting (for a slot or for the call) was cancelled rather than
+ * turned away, so it gets a {@link CancellationException} and is not counted as
+ * rejected.
+ * </p>
+ *
+ * <p>
+ * A slot is held until the call itself returns. A call that outlives its timeout or
+ * its caller is interrupted, but if it ignores the interrupt (a blocking read, say)
+ * it keeps its slot, so no more than {@code max-in-flight} calls ever reach the AI
+ * service at once.
+ * </p>
+ *
+ * <p>
+ * In-flight calls, queue depth and rejections are published as
+ * {@code guidance.bulkhead.*} metrics.
+ * </p>
+ */
+@Component
+public class GuidanceBulkhead implements MeterBinder {
+
+    private final int maxInFlight;
+    private final int maxQueue;
+    private final Duration maxWait;
+
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("guidance-", 0).factory());
+
+    public GuidanceBulkhead(@Value("${ai.guidance.bulkhead.max-in-flight:8}") int maxInFlight,
+                            @Value("${ai.guidance.bulkhead.max-queue:16}") int maxQueue,
+                            @Value("${ai.guidance.bulkhead.max-wait:10s}") Duration maxWait) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("ai.guidance.bulkhead.max-in-flight must be at least 1.");
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxInFlight, true);
+    }
+
+    /**
+     * Runs {@code call} on a virtual thread once a slot is free and waits for its result.
+     *
+     * @return whatever {@code call} returns
+     * @throws BulkheadFullException if the bulkhead is saturated
+     * @throws CancellationException if the caller is interrupted while waiting; its
+     *         interrupt flag is set again
+     */
+    public <T> T execute(Supplier<T> call) {
+        return execute(call, null);
+    }
+
+    /**
+     * Like {@link #execute(Supplier)}, but gives up once the call has run for
+     * {@code timeout}, interrupting its thread.
+     *
+     * @param timeout the longest the call may run, or {@code null} for no limit
+     * @throws GuidanceTimeoutException if the call takes longer than {@code timeout}
+     */
+    public <T> T execute(Supplier<T> call, Duration timeout) {
+        acquire();
+        // whoever flips this first owns the slot: the call, which releases it when it
+        // finishes, or a caller that gives up before the call ever started
+        AtomicBoolean started = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    throw new CancellationException("Gave up before the AI call started.");
+                }
+                try {
+                    return call.get();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        try {
+            return timeout == null ? future.get() : future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            giveUp(future, started);
+            throw new GuidanceTimeoutException("AI call did not finish within " + timeout + ".");
+        } catch (InterruptedException e) {
+            giveUp(future, started);
+            Thread.currentThread().interrupt();
+            throw cancelled("Interrupted while waiting for the AI call.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Interrupts a call nobody waits for any more; its slot is freed here only if it never started. */
+    private void giveUp(Future<?> future, AtomicBoolean started) {
+        if (started.compareAndSet(false, true)) {
+            permits.release();
+        }
+        future.cancel(true);
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    /** Slots free right now, without waiting. */
+    public int freeSlots() {
+        return permits.availablePermits();
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int queueDepth() {
+        return queued.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("guidance.bulkhead.in_flight", this, GuidanceBulkhead::inFlight)
+                .description("Outbound AI calls currently running")
+                .register(registry);
+        Gauge.builder("guidance.bulkhead.queue_depth", this, GuidanceBulkhead::queueDepth)
+                .description("Callers waiting for a free AI call slot")
+                .register(registry);
+        FunctionCounter.builder("guidance.bulkhead.rejected", rejected, LongAdder::sum)
+                .description("Guidance requests rejected because the bulkhead was full")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void acquire() {
+        try {
+            // unlike tryAcquire(), honours fairness: no barging past callers already waiting
+            if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cancelled("Interrupted while waiting for a guidance slot.", e);
+        }
+
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new BulkheadFullException("Guidance queue is full.");
+        }
+        try {
+            if (!permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new BulkheadFullException("Timed out waiting for a guidance slot.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cancelled("Interrupted while waiting for a guidance slot.", e);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private static CancellationException cancelled(String message, InterruptedException cause) {
+        CancellationException e = new CancellationException(message);
+        e.initCause(cause);
+        return e;
+    }
+}
@@ -0,0 +1,259 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache for generated guidance.
+ *
+ * <p>
+ * Entries are keyed by a hash of everything that determines the AI answer
+ * (system prompt, model, category and the rendered item list), so an unchanged
+ * list is answered without another call to the AI endpoint.
+ * The cache holds at most {@code ai.guidance.cache.max-entries} entries
+ * (least recently used are evicted first) and each entry expires after
+ * {@code ai.guidance.cache.ttl}.
+ * </p>
+ *
+ * <p>
+ * Entries are also indexed by user and category so they can be dropped as soon as
+ * {@link GoalService} reports a change to that list. Hit, miss and eviction counts
+ * are published as {@code guidance.cache.*} metrics.
+ * </p>
+ *
+ * <p>
+ * The latest answer per user and category is also kept as "last known" guidance.
+ * It survives invalidation and is only served as a fallback while the AI endpoint
+ * is unavailable (see {@link #lastKnown(Long, Category)}).
+ * </p>
+ *
+ * <p>
+ * Entries warmed ahead of a request by the {@link GuidancePrecomputer} are marked, and
+ * the first hit on such an entry is counted, to tell how often precomputation pays off.
+ * </p>
+ */
+@Component
+public class GuidanceCache implements MeterBinder {
+
+    /** Identifies one user's list in one category. */
+    record Scope(Long userId, Category category) {}
+
+    private record Entry(String guidance, Instant expiresAt, Scope scope, boolean precomputed) {}
+
+    /**
+     * Snapshot of the cache counters.
+     *
+     * @param hits lookups answered from the cache
+     * @param misses lookups that found no live entry
+     * @param evictions entries removed because of size or expiry
+     * @param invalidations entries removed because their list changed
+     * @param size current number of entries
+     */
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size) {}
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+
+    // access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Scope, Set<String>> keysByScope = new HashMap<>();
+    private final LinkedHashMap<Scope, String> lastKnown;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder precomputedHits = new LongAdder();
+
+    @Autowired
+    public GuidanceCache(@Value("${ai.guidance.cache.max-entries:500}") int maxEntries,
+                         @Value("${ai.guidance.cache.ttl:30m}") Duration ttl) {
+        this(maxEntries, ttl, Clock.systemUTC());
+    }
+
+    GuidanceCache(int maxEntries, Duration ttl, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("ai.guidance.cache.max-entries must be at least 1.");
+        }
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.lastKnown = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Scope, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Builds the cache key for a guidance request.
+     *
+     * @return a hex-encoded SHA-256 hash of all inputs that shape the answer
+     */
+    public static String key(String systemPrompt, String model, Category category, String renderedItems) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{systemPrompt, model, category.name(), renderedItems}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0); // separator, so ("ab","c") and ("a","bc") differ
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized Optional<String> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (!clock.instant().isBefore(entry.expiresAt())) {
+            remove(key);
+            evictions.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        if (entry.precomputed()) {
+            precomputedHits.increment();
+            entries.put(key, new Entry(entry.guidance(), entry.expiresAt(), entry.scope(), false));
+        }
+        return Optional.of(entry.guidance());
+    }
+
+    /**
+     * Looks up a live entry without touching the hit/miss counters.
+     */
+    public synchronized Optional<String> peek(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || !clock.instant().isBefore(entry.expiresAt())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.guidance());
+    }
+
+    public synchronized void put(Long userId, Category category, String key, String guidance) {
+        Scope scope = new Scope(userId, category);
+        Entry previous = entries.put(key, new Entry(guidance, clock.instant().plus(ttl), scope, false));
+        if (previous != null && !previous.scope().equals(scope)) {
+            unindex(previous.scope(), key);
+        }
+        keysByScope.computeIfAbsent(scope, s -> new HashSet<>()).add(key);
+        lastKnown.put(scope, guidance);
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Map.Entry<String, Entry> e = eldest.next();
+            eldest.remove();
+            unindex(e.getValue().scope(), e.getKey());
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Marks a live entry as computed ahead of any request; its first hit is counted
+     * in {@link #precomputedHits()}.
+     *
+     * @return {@code false} if there is no live entry for the key
+     */
+    public synchronized boolean markPrecomputed(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || !clock.instant().isBefore(entry.expiresAt())) {
+            return false;
+        }
+        entries.put(key, new Entry(entry.guidance(), entry.expiresAt(), entry.scope(), true));
+        return true;
+    }
+
+    /** Lookups that were the first to use a precomputed entry. */
+    public long precomputedHits() {
+        return precomputedHits.sum();
+    }
+
+    /**
+     * Returns the most recent guidance stored for a user's category, even if the
+     * list has changed or the entry expired since. Meant only as a fallback.
+     */
+    public synchronized Optional<String> lastKnown(Long userId, Category category) {
+        return Optional.ofNullable(lastKnown.get(new Scope(userId, category)));
+    }
+
+    /**
+     * Drops every entry that was computed for the given user's category.
+     */
+    public synchronized void invalidate(Long userId, Category category) {
+        Set<String> keys = keysByScope.remove(new Scope(userId, category));
+        if (keys == null) return;
+        for (String key : keys) {
+            if (entries.remove(key) != null) invalidations.increment();
+        }
+    }
+
+    /** Runs once the change has committed, so a rolled-back add leaves the cache as it was. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGoalItemsChanged(GoalItemsChangedEvent event) {
+        invalidate(event.userId(), event.category());
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), entries.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("guidance.cache.hits", hits, LongAdder::sum)
+                .description("Guidance lookups answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("guidance.cache.misses", misses, LongAdder::sum)
+                .description("Guidance lookups that required a new AI call")
+                .register(registry);
+        FunctionCounter.builder("guidance.cache.evictions", evictions, LongAdder::sum)
+                .description("Guidance entries evicted by size or TTL")
+                .register(registry);
+        FunctionCounter.builder("guidance.cache.invalidations", invalidations, LongAdder::sum)
+                .description("Guidance entries dropped because their list changed")
+                .register(registry);
+        Gauge.builder("guidance.cache.size", this, c -> c.stats().size())
+                .description("Current number of cached guidance entries")
+                .register(registry);
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) unindex(removed.scope(), key);
+    }
+
+    private void unindex(Scope scope, String key) {
+        Set<String> keys = keysByScope.get(scope);
+        if (keys == null) return;
+        keys.remove(key);
+        if (keys.isEmpty()) keysByScope.remove(scope);
+    }
+}
@@ -0,0 +1,162 @@
+package com.goalsapp.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker for the AI endpoint.
+ *
+ * <p>
+ * After {@code ai.guidance.breaker.failure-threshold} consecutive outage-like failures
+ * (429, 5xx, timeouts, network errors) the breaker opens and callers are turned away
+ * immediately for {@code ai.guidance.breaker.open-duration}. It then lets a single
+ * probe through (half-open): a success closes it again, a failure re-opens it.
+ * Outcomes of calls that were already under way when the breaker opened are
+ * ignored; only the probe decides.
+ * </p>
+ *
+ * <p>
+ * The state ({@code 0} closed, {@code 1} open, {@code 2} half-open) and the number of
+ * short-circuited calls are published as {@code guidance.breaker.*} metrics.
+ * </p>
+ */
+@Component
+public class GuidanceCircuitBreaker implements MeterBinder {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Leave for one call, telling the breaker whether that call is its half-open probe. */
+    public static final class Permit {
+        private final boolean probe;
+
+        private Permit(boolean probe) {
+            this.probe = probe;
+        }
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean probeInFlight;
+
+    private static final Permit REGULAR = new Permit(false);
+    private static final Permit PROBE = new Permit(true);
+
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    @Autowired
+    public GuidanceCircuitBreaker(@Value("${ai.guidance.breaker.failure-threshold:5}") int failureThreshold,
+                                  @Value("${ai.guidance.breaker.open-duration:30s}") Duration openDuration) {
+        this(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    GuidanceCircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("ai.guidance.breaker.failure-threshold must be at least 1.");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * Asks whether a call may go out now. Every permit handed out must be passed back
+     * to exactly one of {@link #onSuccess(Permit)}, {@link #onFailure(Permit)} or
+     * {@link #release(Permit)}.
+     *
+     * @return a permit for one call, or empty if the call is short-circuited
+     */
+    public synchronized Optional<Permit> tryAcquire() {
+        if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) {
+            return Optional.of(REGULAR);
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return Optional.of(PROBE);
+        }
+        shortCircuited.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * The upstream answered normally. Only the half-open probe closes the breaker; a
+     * call that was let through before the breaker opened and finishes late is
+     * ignored, so it cannot cut the cooldown short.
+     */
+    public synchronized void onSuccess(Permit permit) {
+        if (permit.probe) {
+            probeInFlight = false;
+            if (state == State.HALF_OPEN) {
+                consecutiveFailures = 0;
+                state = State.CLOSED;
+            }
+        } else if (state == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+    }
+
+    /**
+     * The upstream failed in a way that suggests an outage or exhausted quota. A late
+     * failure of a call let through before the breaker opened changes nothing.
+     */
+    public synchronized void onFailure(Permit permit) {
+        if (permit.probe) {
+            probeInFlight = false;
+        } else if (state != State.CLOSED) {
+            return;
+        }
+        consecutiveFailures++;
+        if (permit.probe || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.instant();
+            opened.increment();
+        }
+    }
+
+    /** The permitted call was not made after all; frees a half-open probe without judging the upstream. */
+    public synchronized void release(Permit permit) {
+        if (permit.probe) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public long shortCircuitedCount() {
+        return shortCircuited.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("guidance.breaker.state", this, b -> b.state().ordinal())
+                .description("AI circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(registry);
+        FunctionCounter.builder("guidance.breaker.short_circuited", shortCircuited, LongAdder::sum)
+                .description("Guidance requests answered with a fallback because the breaker was open")
+                .register(registry);
+        FunctionCounter.builder("guidance.breaker.opened", opened, LongAdder::sum)
+                .description("Times the AI circuit breaker opened")
+                .register(registry);
+    }
+}
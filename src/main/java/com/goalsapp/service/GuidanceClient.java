@@ -0,0 +1,417 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.ResponseChain;
+import com.goalsapp.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Sends guidance requests to the OpenAI Responses API.
+ *
+ * <p>
+ * Every call goes through the {@link GuidanceCircuitBreaker}, the
+ * {@link GuidanceRateLimiter} and the {@link GuidanceBulkhead}, in that order, on the
+ * shared {@code aiRestClient}; a call that runs longer than {@code ai.http.total-timeout}
+ * is abandoned. Outbound latency, prompt sizes, token usage and error classes are
+ * recorded by {@link GuidanceMetrics}.
+ * </p>
+ *
+ * <p>
+ * In incremental mode ({@code ai.guidance.incremental.enabled}) a request for a list
+ * that has only grown since its last answer continues that answer with
+ * {@code previous_response_id} and sends just the added items; see {@link ResponseChain}.
+ * If the endpoint no longer knows the earlier response, the full prompt is sent instead.
+ * </p>
+ *
+ * <p>
+ * Caching, storing and describing the answers is left to the {@link GuidanceService}.
+ * </p>
+ */
+@Component
+public class GuidanceClient {
+
+    static final String NO_RESPONSE = "No response from OpenAI.";
+    static final String UNPARSEABLE_RESPONSE = "Could not parse OpenAI response.";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * What one request sends: the full prompt, or, continuing an earlier response,
+     * only the items added since. Also the list snapshot to store with the answer.
+     */
+    record Turn(String input, String previousResponseId, long lastItemId, int itemCount,
+                int chainLength, Instant chainStartedAt) {
+
+        String mode() {
+            return previousResponseId == null ? GuidanceMetrics.FULL : GuidanceMetrics.INCREMENTAL;
+        }
+    }
+
+    /** A turn as it was actually sent, with its result. */
+    record Sent(Turn turn, ResponsesApiParser.Result result) {
+
+        /** The chain a follow-up request can continue, or {@code null} without a response id. */
+        ResponseChain chain(String basis) {
+            return result.responseId() == null ? null
+                    : new ResponseChain(result.responseId(), basis, turn.lastItemId(), turn.itemCount(),
+                            turn.chainLength(), turn.chainStartedAt());
+        }
+    }
+
+    private final GuidanceBulkhead guidanceBulkhead;
+    private final GuidanceCircuitBreaker circuitBreaker;
+    private final GuidanceRateLimiter rateLimiter;
+    private final GuidanceMetrics metrics;
+    private final GuidanceHistoryService history;
+    private final PromptBuilder promptBuilder;
+    private final RestClient restClient;
+    private final String guidanceSystemPrompt; // from XML
+
+    @Value("${ai.openai.base-url:}")
+    private String aiBaseUrl;
+
+    @Value("${ai.openai.key:}")
+    private String aiApiKey;
+
+    @Value("${ai.openai.model:gpt-4.1-mini}")
+    private String model;
+
+    @Value("${ai.http.total-timeout:2m}")
+    private Duration totalTimeout = Duration.ofMinutes(2);
+
+    @Value("${ai.guidance.incremental.enabled:false}")
+    private boolean incremental;
+
+    @Value("${ai.guidance.incremental.max-age:24h}")
+    private Duration chainMaxAge = Duration.ofHours(24);
+
+    @Value("${ai.guidance.incremental.max-chain:5}")
+    private int maxChainLength = 5;
+
+    public GuidanceClient(GuidanceBulkhead guidanceBulkhead,
+                          GuidanceCircuitBreaker circuitBreaker,
+                          GuidanceRateLimiter rateLimiter,
+                          GuidanceMetrics metrics,
+                          GuidanceHistoryService history,
+                          PromptBuilder promptBuilder,
+                          @Qualifier("aiRestClient") RestClient restClient,
+                          @Qualifier("guidanceSystemPrompt") String guidanceSystemPrompt) {
+        this.guidanceBulkhead = guidanceBulkhead;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+        this.history = history;
+        this.promptBuilder = promptBuilder;
+        this.restClient = restClient;
+        this.guidanceSystemPrompt = guidanceSystemPrompt;
+    }
+
+    /** Whether the AI endpoint is configured; without its URL and key nothing can be sent. */
+    public boolean isConfigured() {
+        return !aiApiKey.isBlank() && !aiBaseUrl.isBlank();
+    }
+
+    public String model() {
+        return model;
+    }
+
+    /** Identifies the system prompt and model an answer was generated with. */
+    public String basis(Category category) {
+        return GuidanceCache.key(guidanceSystemPrompt, model, category, "");
+    }
+
+    /**
+     * Asks for guidance on one category's list and waits for the whole answer.
+     *
+     * @param prompt the full prompt for {@code items}, sent unless a chain can be continued
+     * @return the turn sent and its result, whose text may be {@link #NO_RESPONSE} or
+     *         {@link #UNPARSEABLE_RESPONSE}
+     * @throws GuidanceUnavailableException if the breaker is open or the rate limit is reached;
+     *                                      no request was sent
+     * @throws BulkheadFullException if too many calls are already running
+     * @throws GuidanceTimeoutException if the call took longer than {@code ai.http.total-timeout}
+     * @throws RestClientException if the endpoint answered with an error or could not be reached
+     */
+    Sent respond(User user, Category category, List<GoalItemView> items, String prompt) {
+        return send(turn(user, category, items, prompt), items, prompt, turn -> callUpstream(turn.mode(), turn.input(),
+                () -> restClient.post()
+                        .uri(aiBaseUrl)
+                        .header("Authorization", "Bearer " + aiApiKey)
+                        .header("Content-Type", "application/json")
+                        .body(body(turn, false))
+                        .exchange((request, response) -> {
+                            checkResponse(request, response);
+                            return readResponse(response.getBody());
+                        })));
+    }
+
+    /**
+     * Like {@link #respond(User, Category, List, String)}, but with {@code stream=true}:
+     * every text delta is handed to {@code onDelta} as soon as it arrives.
+     *
+     * @return the turn sent and its result, whose text is empty if no delta arrived
+     */
+    Sent stream(User user, Category category, List<GoalItemView> items, String prompt, Consumer<String> onDelta) {
+        return send(turn(user, category, items, prompt), items, prompt, turn -> callUpstream(turn.mode(), turn.input(),
+                () -> restClient.post()
+                        .uri(aiBaseUrl)
+                        .header("Authorization", "Bearer " + aiApiKey)
+                        .header("Content-Type", "application/json")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .body(body(turn, true))
+                        .exchange((request, response) -> {
+                            checkResponse(request, response);
+                            return readStream(response.getBody(), onDelta);
+                        })));
+    }
+
+    /**
+     * Sends {@code input} as a full prompt whose answer must follow {@code format}
+     * (the Responses API {@code text.format}).
+     *
+     * @throws RuntimeException the same failures as {@link #respond(User, Category, List, String)}
+     */
+    ResponsesApiParser.Result ask(String input, Map<String, Object> format) {
+        Map<String, Object> body = Map.of(
+                "model", model,
+                "input", input,
+                "text", Map.of("format", format)
+        );
+        return callUpstream(GuidanceMetrics.FULL, input, () -> restClient.post()
+                .uri(aiBaseUrl)
+                .header("Authorization", "Bearer " + aiApiKey)
+                .header("Content-Type", "application/json")
+                .body(body)
+                .exchange((request, response) -> {
+                    checkResponse(request, response);
+                    return readResponse(response.getBody());
+                }));
+    }
+
+    /** 429, 5xx and network errors count against the breaker; other client errors do not. */
+    static boolean isOutage(RestClientException e) {
+        if (e instanceof RestClientResponseException response) {
+            return response.getStatusCode().value() == 429 || response.getStatusCode().is5xxServerError();
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    /**
+     * Chooses how to ask for a list. With {@code ai.guidance.incremental.enabled}, the
+     * category's newest answer is continued with {@code previous_response_id} when its
+     * chain is usable: same system prompt and model, younger than
+     * {@code ai.guidance.incremental.max-age}, shorter than
+     * {@code ai.guidance.incremental.max-chain}, and the list has only grown since.
+     * Otherwise the full prompt is sent and a new chain starts.
+     */
+    private Turn turn(User user, Category category, List<GoalItemView> items, String prompt) {
+        Turn full = fullTurn(items, prompt);
+        if (!incremental) {
+            return full;
+        }
+        ResponseChain head = history.latestChain(user.getId(), category).orElse(null);
+        if (head == null
+                || !basis(category).equals(head.getBasis())
+                || head.getLength() >= maxChainLength
+                || head.getStartedAt().isBefore(Instant.now().minus(chainMaxAge))) {
+            return full;
+        }
+        List<GoalItemView> added = items.stream()
+                .filter(item -> item.id() != null && item.id() > head.getLastItemId())
+                .toList();
+        if (added.isEmpty() || items.size() - added.size() != head.getItemCount()) {
+            // nothing new, or items were removed: the diff would not describe the list
+            return full;
+        }
+        return new Turn(promptBuilder.continuationPrompt(promptBuilder.itemList(category, added)),
+                head.getResponseId(), full.lastItemId(), items.size(), head.getLength() + 1, head.getStartedAt());
+    }
+
+    private Turn fullTurn(List<GoalItemView> items, String prompt) {
+        long lastItemId = items.stream().map(GoalItemView::id).filter(Objects::nonNull)
+                .mapToLong(Long::longValue).max().orElse(0);
+        return new Turn(guidanceSystemPrompt + "\n\n" + prompt, null, lastItemId, items.size(), 0, Instant.now());
+    }
+
+    /**
+     * Sends a turn. If it continues a response the endpoint no longer knows (expired,
+     * deleted, or not supported), the full prompt is sent instead.
+     */
+    private Sent send(Turn turn, List<GoalItemView> items, String prompt, Function<Turn, ResponsesApiParser.Result> call) {
+        try {
+            return new Sent(turn, call.apply(turn));
+        } catch (HttpClientErrorException e) {
+            int status = e.getStatusCode().value();
+            if (turn.previousResponseId() == null || (status != 400 && status != 404)) {
+                throw e;
+            }
+            Turn full = fullTurn(items, prompt);
+            return new Sent(full, call.apply(full));
+        }
+    }
+
+    private Map<String, Object> body(Turn turn, boolean stream) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", model);
+        body.put("input", turn.input());
+        if (turn.previousResponseId() != null) {
+            body.put("previous_response_id", turn.previousResponseId());
+        }
+        if (stream) {
+            body.put("stream", true);
+        }
+        return body;
+    }
+
+    /**
+     * Sends one call through the circuit breaker, the rate limiter and the bulkhead,
+     * and reports its outcome back to the breaker.
+     *
+     * @throws GuidanceUnavailableException if the breaker is open or the rate limit is reached;
+     *                                      no request was sent
+     */
+    private <T> T callUpstream(String mode, String input, Supplier<T> call) {
+        GuidanceCircuitBreaker.Permit permit = circuitBreaker.tryAcquire()
+                .orElseThrow(() -> new GuidanceUnavailableException("Circuit breaker is open."));
+        if (!rateLimiter.tryAcquire()) {
+            circuitBreaker.release(permit);
+            throw new GuidanceUnavailableException("Rate limit reached.");
+        }
+
+        boolean judged = false;
+        try {
+            T result = guidanceBulkhead.execute(() -> metrics.recordOutbound(mode, input, call), totalTimeout);
+            circuitBreaker.onSuccess(permit);
+            judged = true;
+            return result;
+        } catch (GuidanceTimeoutException e) {
+            circuitBreaker.onFailure(permit);
+            judged = true;
+            throw e;
+        } catch (RestClientException e) {
+            if (isOutage(e)) circuitBreaker.onFailure(permit);
+            else circuitBreaker.onSuccess(permit);
+            judged = true;
+            throw e;
+        } finally {
+            if (!judged) circuitBreaker.release(permit);
+        }
+    }
+
+    /**
+     * Reads a Responses API event stream line by line and forwards every text delta.
+     * Token usage and the response id are taken from the closing {@code response.completed}
+     * event; the usage is recorded.
+     *
+     * @return the joined deltas and the reported usage
+     */
+    ResponsesApiParser.Result readStream(InputStream body, Consumer<String> onDelta) throws IOException {
+        StringBuilder text = new StringBuilder();
+        long inputTokens = 0;
+        long outputTokens = 0;
+        String responseId = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("data:")) continue;
+                JsonNode event = readEvent(line.substring("data:".length()).trim());
+                switch (event.path("type").asText()) {
+                    case "response.output_text.delta" -> {
+                        String delta = event.path("delta").asText("");
+                        text.append(delta);
+                        onDelta.accept(delta);
+                    }
+                    case "response.completed" -> {
+                        responseId = event.path("response").path("id").asText(null);
+                        JsonNode usage = event.path("response").path("usage");
+                        inputTokens = usage.path("input_tokens").asLong();
+                        outputTokens = usage.path("output_tokens").asLong();
+                    }
+                    default -> {}
+                }
+            }
+        }
+        metrics.recordUsage(inputTokens, outputTokens);
+        return new ResponsesApiParser.Result(text.toString(), inputTokens, outputTokens, responseId);
+    }
+
+    /** Parses one event's data; anything unreadable becomes a missing node. */
+    private static JsonNode readEvent(String eventData) {
+        if (eventData.isEmpty() || "[DONE]".equals(eventData)) return MissingNode.getInstance();
+        try {
+            return JSON.readTree(eventData);
+        } catch (JsonProcessingException e) {
+            return MissingNode.getInstance();
+        }
+    }
+
+    /**
+     * Reads the answer text from a Responses API body with {@link ResponsesApiParser}
+     * and records the reported token usage.
+     *
+     * @return the text, or {@link #NO_RESPONSE} / {@link #UNPARSEABLE_RESPONSE}
+     * @throws IOException if the body cannot be read
+     */
+    String extractText(InputStream body) throws IOException {
+        return readResponse(body).text();
+    }
+
+    /**
+     * Like {@link #extractText(InputStream)}, but keeps the reported token usage
+     * (zero for the placeholder texts).
+     */
+    ResponsesApiParser.Result readResponse(InputStream body) throws IOException {
+        ResponsesApiParser.Result result;
+        try {
+            result = ResponsesApiParser.parse(body);
+        } catch (JsonProcessingException e) {
+            return new ResponsesApiParser.Result(UNPARSEABLE_RESPONSE, 0, 0);
+        }
+        if (result == null) return new ResponsesApiParser.Result(NO_RESPONSE, 0, 0);
+
+        metrics.recordUsage(result.inputTokens(), result.outputTokens());
+        return result.text().isBlank() ? new ResponsesApiParser.Result(UNPARSEABLE_RESPONSE, 0, 0) : result;
+    }
+
+    /**
+     * Feeds the rate-limit headers to the limiter and turns an error status into
+     * the usual {@link RestClientException} subtype.
+     */
+    private void checkResponse(HttpRequest request, ClientHttpResponse response) throws IOException {
+        rateLimiter.onResponse(response.getHeaders());
+        if (response.getStatusCode().isError()) {
+            new DefaultResponseErrorHandler().handleError(request.getURI(), request.getMethod(), response);
+        }
+    }
+}
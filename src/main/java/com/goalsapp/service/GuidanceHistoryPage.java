@@ -0,0 +1,18 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GuidanceRecordView;
+
+import java.util.List;
+
+/**
+ * One page of a category's guidance history, newest first.
+ *
+ * @param records the answers on this page, newest first
+ * @param next cursor for the following page, or {@code null} if this is the last page
+ */
+public record GuidanceHistoryPage(List<GuidanceRecordView> records, GoalCursor next) {
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GuidanceRecordView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GuidanceRecord;
+import com.goalsapp.entity.ResponseChain;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.GuidanceRecordRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durable history of generated guidance.
+ *
+ * <p>
+ * Every answer from the AI endpoint is stored with the content hash of its request
+ * (see {@link GuidanceCache#key}). {@link GuidanceService} looks the hash up before
+ * calling out, so an unchanged list is not paid for twice, even after a restart or
+ * on another node. Users can page back through earlier answers per category.
+ * </p>
+ */
+@Service
+public class GuidanceHistoryService {
+
+    private final GuidanceRecordRepository recordRepo;
+
+    public GuidanceHistoryService(GuidanceRecordRepository recordRepo) {
+        this.recordRepo = recordRepo;
+    }
+
+    /**
+     * Returns the newest stored answer for a request's content hash.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> find(Long userId, String contentHash) {
+        return recordRepo.findTexts(userId, contentHash, Limit.of(1)).stream().findFirst();
+    }
+
+    /**
+     * Returns the newest stored answer for a category, whatever list it answered.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> latest(Long userId, Category category) {
+        return recordRepo.findLatestTexts(userId, category, Limit.of(1)).stream().findFirst();
+    }
+
+    /**
+     * Returns the response chain of the category's newest answer, if it has one.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ResponseChain> latestChain(Long userId, Category category) {
+        List<ResponseChain> chains = recordRepo.findLatestChains(userId, category, Limit.of(1));
+        return chains.isEmpty() ? Optional.empty() : Optional.ofNullable(chains.get(0));
+    }
+
+    /**
+     * Whether the user has ever been given AI guidance.
+     */
+    @Transactional(readOnly = true)
+    public boolean hasAny(Long userId) {
+        return recordRepo.existsByUserId(userId);
+    }
+
+    /**
+     * Stores an answer.
+     *
+     * @param chain where the answer continues a response chain, or {@code null} if it cannot be continued
+     */
+    @Transactional
+    public GuidanceRecord record(User user, Category category, String contentHash, String model,
+                                 long inputTokens, long outputTokens, String text, ResponseChain chain) {
+        return recordRepo.save(new GuidanceRecord(user, category, contentHash, model, inputTokens, outputTokens, text, chain));
+    }
+
+    /**
+     * Returns one page of a category's history, newest first, using keyset pagination.
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
+     * @param size maximum number of answers on the page
+     */
+    @Transactional(readOnly = true)
+    public GuidanceHistoryPage page(User user, Category category, GoalCursor after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        // fetch one extra row to learn whether another page exists
+        Limit limit = Limit.of(size + 1);
+        List<GuidanceRecordView> rows = after == null
+                ? recordRepo.findFirstPage(user.getId(), category, limit)
+                : recordRepo.findPageAfter(user.getId(), category, after.createdAt(), after.id(), limit);
+
+        if (rows.size() <= size) {
+            return new GuidanceHistoryPage(rows, null);
+        }
+        List<GuidanceRecordView> records = rows.subList(0, size);
+        GuidanceRecordView last = records.get(size - 1);
+        return new GuidanceHistoryPage(List.copyOf(records), new GoalCursor(last.createdAt(), last.id()));
+    }
+}
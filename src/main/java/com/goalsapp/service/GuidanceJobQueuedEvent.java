@@ -0,0 +1,10 @@
+package com.goalsapp.service;
+
+/**
+ * Published by {@link GuidanceJobService} when a guidance job is queued, so an idle
+ * {@link GuidanceJobWorker} can pick it up without waiting for its next poll.
+ *
+ * @param jobId the id of the queued job
+ */
+public record GuidanceJobQueuedEvent(Long jobId) {
+}
@@ -0,0 +1,180 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GuidanceJobView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GuidanceJob;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.GuidanceJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Durable queue of background guidance jobs.
+ *
+ * <p>
+ * {@link #enqueue(User, Category)} stores a job and returns straight away; the
+ * {@link GuidanceJobWorker} threads claim and run it, and the page polls
+ * {@link #find(User, Long)} for the result. A job is leased to its worker for
+ * {@code ai.guidance.jobs.lease}; if the worker dies (or the application stops)
+ * before finishing, the job is claimed again once the lease has run out.
+ * </p>
+ *
+ * <p>
+ * A failure that may go away on its own is retried up to
+ * {@code ai.guidance.jobs.max-attempts} times, waiting {@code ai.guidance.jobs.backoff}
+ * before the second attempt and twice as long before each further one, capped at
+ * {@code ai.guidance.jobs.max-backoff}.
+ * </p>
+ *
+ * <p>
+ * An attempt cut short by an expired lease counts too: once a job has used up its
+ * attempts, it fails instead of being claimed again.
+ * </p>
+ */
+@Service
+public class GuidanceJobService {
+
+    /** Candidates read per claim; losing races for all of them just means another look. */
+    private static final int CLAIM_CANDIDATES = 8;
+
+    static final String ABANDONED = """
+            ⚠️ Generating your guidance kept getting interrupted.
+
+            Please try again in a moment 💗
+            """;
+
+    private final GuidanceJobRepository jobRepo;
+    private final ApplicationEventPublisher events;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Clock clock;
+
+    @Autowired
+    public GuidanceJobService(GuidanceJobRepository jobRepo,
+                              ApplicationEventPublisher events,
+                              @Value("${ai.guidance.jobs.max-attempts:5}") int maxAttempts,
+                              @Value("${ai.guidance.jobs.backoff:5s}") Duration backoff,
+                              @Value("${ai.guidance.jobs.max-backoff:5m}") Duration maxBackoff,
+                              @Value("${ai.guidance.jobs.lease:5m}") Duration lease) {
+        this(jobRepo, events, maxAttempts, backoff, maxBackoff, lease, Clock.systemUTC());
+    }
+
+    GuidanceJobService(GuidanceJobRepository jobRepo, ApplicationEventPublisher events, int maxAttempts,
+                       Duration backoff, Duration maxBackoff, Duration lease, Clock clock) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("ai.guidance.jobs.max-attempts must be at least 1.");
+        }
+        if (lease.isNegative() || lease.isZero()) {
+            throw new IllegalArgumentException("ai.guidance.jobs.lease must be positive.");
+        }
+        this.jobRepo = jobRepo;
+        this.events = events;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.clock = clock;
+    }
+
+    /**
+     * Queues guidance for a category. If the user already has a job for it waiting in
+     * the queue, that job is returned instead, so double clicks do not pile up work.
+     */
+    @Transactional
+    public GuidanceJobView enqueue(User user, Category category) {
+        Optional<GuidanceJob> waiting = jobRepo.findFirstByUserIdAndCategoryAndStatusInOrderByIdDesc(
+                user.getId(), category, List.of(GuidanceJob.Status.QUEUED));
+        if (waiting.isPresent()) {
+            return GuidanceJobView.of(waiting.get());
+        }
+        GuidanceJob job = jobRepo.save(new GuidanceJob(user, category, clock.instant()));
+        events.publishEvent(new GuidanceJobQueuedEvent(job.getId()));
+        return GuidanceJobView.of(job);
+    }
+
+    /**
+     * Returns one of the user's jobs; other users' jobs are not found.
+     */
+    @Transactional(readOnly = true)
+    public Optional<GuidanceJobView> find(User user, Long jobId) {
+        return jobRepo.findByIdAndUserId(jobId, user.getId()).map(GuidanceJobView::of);
+    }
+
+    /**
+     * Claims the next due job for the calling worker.
+     *
+     * <p>
+     * Not transactional on purpose: each claim commits on its own, so a competing
+     * worker sees it at once.
+     * </p>
+     *
+     * @return the claimed job with its user loaded, or empty if nothing is due
+     */
+    public Optional<GuidanceJob> claimNext() {
+        Instant now = now();
+        Instant leaseUntil = now.plus(lease);
+        jobRepo.failAbandoned(GuidanceJob.Status.RUNNING, GuidanceJob.Status.FAILED, now(), maxAttempts, ABANDONED);
+        List<Long> candidates = jobRepo.findClaimable(GuidanceJob.Status.QUEUED, GuidanceJob.Status.RUNNING,
+                now, maxAttempts, Limit.of(CLAIM_CANDIDATES));
+        for (Long id : candidates) {
+            if (jobRepo.claim(id, GuidanceJob.Status.QUEUED, GuidanceJob.Status.RUNNING, now, maxAttempts,
+                    leaseUntil) == 1) {
+                return jobRepo.findWithUser(id);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the result of attempt {@code attempt}. Ignored if the job has moved on,
+     * e.g. because its lease ran out and another worker claimed it again.
+     *
+     * @return {@code true} if the result was stored
+     */
+    public boolean complete(Long jobId, int attempt, String result) {
+        return jobRepo.finish(jobId, attempt, GuidanceJob.Status.RUNNING, GuidanceJob.Status.SUCCEEDED, result,
+                now()) == 1;
+    }
+
+    /**
+     * Records that attempt {@code attempt} failed. A retryable failure goes back in the
+     * queue after the backoff unless the job has used up its attempts; otherwise the
+     * job fails and shows {@code message}. Ignored if the job has moved on.
+     *
+     * @return {@code true} if the job will be retried
+     */
+    public boolean fail(Long jobId, int attempt, boolean retryable, Supplier<String> message) {
+        Instant now = now();
+        if (retryable && attempt < maxAttempts) {
+            return jobRepo.requeue(jobId, attempt, GuidanceJob.Status.RUNNING, GuidanceJob.Status.QUEUED,
+                    now.plus(backoff(attempt))) == 1;
+        }
+        jobRepo.finish(jobId, attempt, GuidanceJob.Status.RUNNING, GuidanceJob.Status.FAILED, message.get(), now);
+        return false;
+    }
+
+    /** The current time at the precision the database stores. */
+    private Instant now() {
+        return clock.instant().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /** Wait before the attempt after {@code attempts}: doubles each time, up to the cap. */
+    Duration backoff(int attempts) {
+        Duration delay = backoff.multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 30));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
@@ -0,0 +1,176 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.GuidanceJob;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the {@link GuidanceJobService} queue with a fixed number of worker threads.
+ *
+ * <p>
+ * {@code ai.guidance.jobs.workers} virtual threads each claim one job at a time and
+ * run it through {@link GuidanceService#generate}, so the cache, the stored history,
+ * the circuit breaker, the rate limit and the bulkhead all apply as usual. Idle
+ * workers wake up when a job is queued, and otherwise look again every
+ * {@code ai.guidance.jobs.poll-interval} (which also picks up retries that have
+ * become due and jobs left behind by a stopped node).
+ * </p>
+ *
+ * <p>
+ * Finished jobs are counted as {@code guidance.jobs.completed}, tagged with the
+ * outcome ({@code succeeded}, {@code retried} or {@code failed}).
+ * </p>
+ */
+@Component
+public class GuidanceJobWorker implements SmartLifecycle, MeterBinder {
+
+    static final String FAILED = """
+            ⚠️ Something went wrong while generating your guidance.
+
+            Please try again in a moment 💗
+            """;
+
+    private static final Duration STOP_GRACE = Duration.ofSeconds(10);
+
+    private final GuidanceJobService jobService;
+    private final GuidanceService guidanceService;
+    private final int workers;
+    private final Duration pollInterval;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile ExecutorService executor;
+    private volatile boolean running;
+
+    public GuidanceJobWorker(GuidanceJobService jobService,
+                             GuidanceService guidanceService,
+                             @Value("${ai.guidance.jobs.workers:2}") int workers,
+                             @Value("${ai.guidance.jobs.poll-interval:5s}") Duration pollInterval) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("ai.guidance.jobs.workers must be at least 1.");
+        }
+        this.jobService = jobService;
+        this.guidanceService = guidanceService;
+        this.workers = workers;
+        this.pollInterval = pollInterval;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobQueued(GuidanceJobQueuedEvent event) {
+        wakeUps.release();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (executor != null) return;
+        running = true;
+        executor = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("guidance-job-", 0).factory());
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Lets the workers finish their current job, then interrupts any still waiting
+     * for an AI call after {@link #STOP_GRACE}. A job cut short this way goes back in
+     * the queue as a retryable failure, or is picked up once its lease runs out.
+     */
+    @Override
+    public synchronized void stop() {
+        if (executor == null) return;
+        running = false;
+        wakeUps.release(workers);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_GRACE.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+                executor.awaitTermination(STOP_GRACE.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    private void drain() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                Optional<GuidanceJob> job = jobService.claimNext();
+                if (job.isPresent()) {
+                    run(job.get());
+                } else {
+                    wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // the database is unavailable; wait a poll interval before trying again
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one claimed job and records its outcome.
+     */
+    void run(GuidanceJob job) {
+        try {
+            String guidance = guidanceService.generate(job.getUser(), job.getCategory());
+            jobService.complete(job.getId(), job.getAttempts(), guidance);
+            succeeded.increment();
+        } catch (RuntimeException e) {
+            // an interrupted call leaves the flag set; keep it away from the database I/O below
+            boolean interrupted = Thread.interrupted();
+            try {
+                boolean retrying = jobService.fail(job.getId(), job.getAttempts(), GuidanceService.isRetryable(e), () -> {
+                    try {
+                        return guidanceService.failureMessage(job.getUser(), job.getCategory(), e);
+                    } catch (RuntimeException unexpected) {
+                        return FAILED;
+                    }
+                });
+                (retrying ? retried : failed).increment();
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        completed(registry, "succeeded", succeeded);
+        completed(registry, "retried", retried);
+        completed(registry, "failed", failed);
+    }
+
+    private static void completed(MeterRegistry registry, String outcome, LongAdder count) {
+        FunctionCounter.builder("guidance.jobs.completed", count, LongAdder::sum)
+                .description("Guidance job attempts by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
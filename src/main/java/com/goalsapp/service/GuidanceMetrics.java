@@ -0,0 +1,128 @@
+package com.goalsapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation for outbound guidance calls.
+ *
+ * <p>
+ * Publishes percentile histograms for the outbound HTTP latency
+ * ({@code guidance.outbound}, tagged with the outcome), the prompt size and the parsed
+ * response size (both in characters), and counts failures by error class
+ * ({@code guidance.errors}: {@code 429}, {@code 401}, {@code other} or {@code network}).
+ * Billed tokens are counted as {@code guidance.tokens}. The outbound latency and the
+ * billed prompt tokens per request ({@code guidance.prompt.tokens}) are also tagged
+ * with the prompt {@code mode}: {@code full}, or {@code incremental} when a request
+ * continues an earlier response.
+ * End-to-end latency is recorded separately through
+ * {@link com.goalsapp.aop.TimedOperation}.
+ * </p>
+ */
+@Component
+public class GuidanceMetrics {
+
+    static final String SUCCESS = "success";
+    public static final String FULL = "full";
+    public static final String INCREMENTAL = "incremental";
+
+    private final MeterRegistry registry;
+    private final DistributionSummary promptSize;
+    private final DistributionSummary responseSize;
+    private final Counter inputTokenCount;
+    private final Counter outputTokenCount;
+
+    public GuidanceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.promptSize = DistributionSummary.builder("guidance.prompt.size")
+                .description("Characters sent to the AI endpoint per request")
+                .baseUnit("chars")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.responseSize = DistributionSummary.builder("guidance.response.size")
+                .description("Characters of guidance text parsed from a response")
+                .baseUnit("chars")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.inputTokenCount = tokens(registry, "input");
+        this.outputTokenCount = tokens(registry, "output");
+    }
+
+    /**
+     * Times one outbound call and, if it fails, counts its error class.
+     * Exceptions are rethrown unchanged.
+     */
+    public <T> T recordOutbound(String input, Supplier<T> call) {
+        return recordOutbound(FULL, input, call);
+    }
+
+    /**
+     * Like {@link #recordOutbound(String, Supplier)}, tagging the latency with the prompt mode.
+     */
+    public <T> T recordOutbound(String mode, String input, Supplier<T> call) {
+        promptSize.record(input.length());
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = SUCCESS;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = errorClass(e);
+            Counter.builder("guidance.errors")
+                    .description("Failed outbound guidance calls by error class")
+                    .tag("class", outcome)
+                    .register(registry)
+                    .increment();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("guidance.outbound")
+                    .description("Latency of outbound AI calls")
+                    .tag("outcome", outcome)
+                    .tag("mode", mode)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    public void recordResponse(String text) {
+        responseSize.record(text.length());
+    }
+
+    /** Counts the tokens an answer was billed for, as reported in its {@code usage} block. */
+    public void recordUsage(long inputTokens, long outputTokens) {
+        if (inputTokens > 0) inputTokenCount.increment(inputTokens);
+        if (outputTokens > 0) outputTokenCount.increment(outputTokens);
+    }
+
+    /** Records the prompt tokens one request was billed for, by prompt mode. */
+    public void recordPromptTokens(String mode, long inputTokens) {
+        if (inputTokens <= 0) return;
+        DistributionSummary.builder("guidance.prompt.tokens")
+                .description("Prompt tokens billed per guidance request")
+                .baseUnit("tokens")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(inputTokens);
+    }
+
+    private static Counter tokens(MeterRegistry registry, String type) {
+        return Counter.builder("guidance.tokens")
+                .description("Tokens billed for guidance answers")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    static String errorClass(RuntimeException e) {
+        if (e instanceof HttpClientErrorException.TooManyRequests) return "429";
+        if (e instanceof HttpClientErrorException.Unauthorized) return "401";
+        if (e instanceof ResourceAccessException) return "network";
+        return "other";
+    }
+}
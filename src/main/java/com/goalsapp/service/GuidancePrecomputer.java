@@ -0,0 +1,215 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Regenerates guidance in the background once a user has stopped editing a list.
+ *
+ * <p>
+ * Every {@link GoalItemsChangedEvent} (re)starts a timer for that user and category;
+ * when no further change arrives within {@code ai.guidance.precompute.quiet-period},
+ * {@link GuidanceService#precompute} fills the cache for the new list, so the next
+ * "Get guidance" click is usually answered at once. At most
+ * {@code ai.guidance.precompute.max-concurrency} precomputations run at a time.
+ * </p>
+ *
+ * <p>
+ * Precomputing shares the rate limiter and the bulkhead with users who are waiting for
+ * an answer, so it only takes what they can spare. At most
+ * {@code ai.guidance.precompute.max-queue} lists wait for a worker, each at most once
+ * (a list that changes again while queued is covered by the run already waiting), and
+ * a run is dropped unless more than {@code ai.guidance.precompute.reserve} of the
+ * bulkhead's slots and of the rate limit's burst would still be free after it starts.
+ * A dropped list is simply generated when its user asks for it.
+ * </p>
+ *
+ * <p>
+ * Only users who have been given AI guidance before are precomputed for; nothing is
+ * done in stub mode or with {@code ai.guidance.precompute.enabled=false}. Runs are
+ * counted as {@code guidance.precompute.runs} (tagged {@code precomputed},
+ * {@code skipped}, {@code dropped} or {@code failed}); {@code guidance.precompute.hits} counts
+ * precomputed answers that were later served and {@code guidance.precompute.hit_rate}
+ * relates the two.
+ * </p>
+ */
+@Component
+public class GuidancePrecomputer implements MeterBinder {
+
+    private final GuidanceService guidanceService;
+    private final GuidanceHistoryService history;
+    private final GuidanceCache guidanceCache;
+    private final UserRepository userRepo;
+    private final GuidanceBulkhead bulkhead;
+    private final GuidanceRateLimiter rateLimiter;
+    private final boolean enabled;
+    private final Duration quietPeriod;
+    private final double reserve;
+
+    private final Map<GuidanceCache.Scope, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+    private final Set<GuidanceCache.Scope> queued = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timers =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("guidance-precompute-timer").factory());
+    private final ThreadPoolExecutor workers;
+
+    private final LongAdder precomputed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public GuidancePrecomputer(GuidanceService guidanceService,
+                               GuidanceHistoryService history,
+                               GuidanceCache guidanceCache,
+                               UserRepository userRepo,
+                               GuidanceBulkhead bulkhead,
+                               GuidanceRateLimiter rateLimiter,
+                               @Value("${ai.guidance.precompute.enabled:true}") boolean enabled,
+                               @Value("${ai.guidance.precompute.quiet-period:10s}") Duration quietPeriod,
+                               @Value("${ai.guidance.precompute.max-concurrency:1}") int maxConcurrency,
+                               @Value("${ai.guidance.precompute.max-queue:100}") int maxQueue,
+                               @Value("${ai.guidance.precompute.reserve:0.5}") double reserve) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("ai.guidance.precompute.max-concurrency must be at least 1.");
+        }
+        if (maxQueue < 1) {
+            throw new IllegalArgumentException("ai.guidance.precompute.max-queue must be at least 1.");
+        }
+        if (reserve < 0 || reserve >= 1) {
+            throw new IllegalArgumentException("ai.guidance.precompute.reserve must be at least 0 and below 1.");
+        }
+        this.guidanceService = guidanceService;
+        this.history = history;
+        this.guidanceCache = guidanceCache;
+        this.userRepo = userRepo;
+        this.bulkhead = bulkhead;
+        this.rateLimiter = rateLimiter;
+        this.enabled = enabled;
+        this.quietPeriod = quietPeriod;
+        this.reserve = reserve;
+        this.workers = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueue), Thread.ofVirtual().name("guidance-precompute-", 0).factory());
+    }
+
+    /**
+     * Restarts the quiet period for the changed list. Runs after the change is
+     * committed, so the precomputation sees the new items.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGoalItemsChanged(GoalItemsChangedEvent event) {
+        if (!enabled || !guidanceService.usesAi()) return;
+
+        GuidanceCache.Scope scope = new GuidanceCache.Scope(event.userId(), event.category());
+        pending.compute(scope, (s, previous) -> {
+            if (previous != null) previous.cancel(false);
+            return timers.schedule(() -> settle(s), quietPeriod.toMillis(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    void settle(GuidanceCache.Scope scope) {
+        // a change arriving right now may lose its timer here; its list is then covered by this run
+        pending.remove(scope);
+        if (!queued.add(scope)) {
+            return; // already waiting for a worker, which will read the latest list
+        }
+        try {
+            workers.execute(() -> {
+                queued.remove(scope);
+                precompute(scope);
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(scope);
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Precomputes one list, unless its user has never asked for guidance or users
+     * waiting for an answer need the capacity.
+     */
+    void precompute(GuidanceCache.Scope scope) {
+        try {
+            if (!spareCapacity()) {
+                dropped.increment();
+                return;
+            }
+            Optional<User> user = history.hasAny(scope.userId()) ? userRepo.findById(scope.userId()) : Optional.empty();
+            if (user.isPresent() && guidanceService.precompute(user.get(), scope.category())) {
+                precomputed.increment();
+            } else {
+                skipped.increment();
+            }
+        } catch (RuntimeException e) {
+            // the user's own request will try again
+            failed.increment();
+        }
+    }
+
+    /** Whether one more call would still leave the reserved share of slots and tokens free. */
+    private boolean spareCapacity() {
+        return bulkhead.queueDepth() == 0
+                && bulkhead.freeSlots() - 1 >= reserve * bulkhead.maxInFlight()
+                && rateLimiter.availableTokens() - 1 >= reserve * rateLimiter.burst();
+    }
+
+    public long precomputedCount() {
+        return precomputed.sum();
+    }
+
+    /** Share of precomputed answers that were served afterwards. */
+    public double hitRate() {
+        long runs = precomputed.sum();
+        return runs == 0 ? 0 : Math.min(1.0, (double) guidanceCache.precomputedHits() / runs);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        runs(registry, "precomputed", precomputed);
+        runs(registry, "skipped", skipped);
+        runs(registry, "dropped", dropped);
+        runs(registry, "failed", failed);
+        FunctionCounter.builder("guidance.precompute.hits", guidanceCache, GuidanceCache::precomputedHits)
+                .description("Precomputed guidance answers that were served to a request")
+                .register(registry);
+        Gauge.builder("guidance.precompute.hit_rate", this, GuidancePrecomputer::hitRate)
+                .description("Share of precomputed guidance answers that were served")
+                .register(registry);
+    }
+
+    private static void runs(MeterRegistry registry, String outcome, LongAdder count) {
+        FunctionCounter.builder("guidance.precompute.runs", count, LongAdder::sum)
+                .description("Background guidance precomputations by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timers.shutdownNow();
+        // queued runs are dropped; running ones finish on their own
+        workers.getQueue().clear();
+        queued.clear();
+        workers.shutdown();
+    }
+}
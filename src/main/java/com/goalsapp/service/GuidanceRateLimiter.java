@@ -0,0 +1,173 @@
+package com.goalsapp.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Global token bucket for calls to the AI endpoint.
+ *
+ * <p>
+ * Tokens refill at {@code ai.guidance.rate-limit.requests-per-minute} up to a burst of
+ * {@code ai.guidance.rate-limit.burst}. The bucket also follows the upstream's own
+ * limits: {@link #onResponse(HttpHeaders)} reads OpenAI's {@code x-ratelimit-*-requests}
+ * and {@code retry-after} headers, lowering the refill rate to the advertised limit,
+ * capping the tokens at the advertised remainder and pausing all calls until the
+ * advertised reset when nothing is left.
+ * </p>
+ *
+ * <p>
+ * Available tokens and rejected calls are published as {@code guidance.ratelimit.*} metrics.
+ * </p>
+ */
+@Component
+public class GuidanceRateLimiter implements MeterBinder {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final double configuredPerMinute;
+    private final int burst;
+    private final Clock clock;
+
+    private double perMinute;
+    private double tokens;
+    private Instant lastRefill;
+    private Instant pausedUntil;
+
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public GuidanceRateLimiter(@Value("${ai.guidance.rate-limit.requests-per-minute:60}") double requestsPerMinute,
+                               @Value("${ai.guidance.rate-limit.burst:10}") int burst) {
+        this(requestsPerMinute, burst, Clock.systemUTC());
+    }
+
+    GuidanceRateLimiter(double requestsPerMinute, int burst, Clock clock) {
+        if (requestsPerMinute <= 0 || burst < 1) {
+            throw new IllegalArgumentException("ai.guidance.rate-limit needs a positive rate and a burst of at least 1.");
+        }
+        this.configuredPerMinute = requestsPerMinute;
+        this.perMinute = requestsPerMinute;
+        this.burst = burst;
+        this.clock = clock;
+        this.tokens = burst;
+        this.lastRefill = clock.instant();
+    }
+
+    /**
+     * Takes a token if one is available. Never blocks.
+     */
+    public synchronized boolean tryAcquire() {
+        Instant now = clock.instant();
+        refill(now);
+        if ((pausedUntil == null || !now.isBefore(pausedUntil)) && tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Adapts the bucket to the rate-limit headers of an upstream response.
+     */
+    public synchronized void onResponse(HttpHeaders headers) {
+        Instant now = clock.instant();
+        refill(now);
+
+        Long limit = parseLong(headers.getFirst("x-ratelimit-limit-requests"));
+        if (limit != null && limit > 0) {
+            perMinute = Math.min(configuredPerMinute, limit);
+        }
+        Long remaining = parseLong(headers.getFirst("x-ratelimit-remaining-requests"));
+        if (remaining != null) {
+            tokens = Math.min(tokens, remaining);
+            Duration reset = parseDuration(headers.getFirst("x-ratelimit-reset-requests"));
+            if (remaining == 0 && reset != null) {
+                pauseUntil(now.plus(reset));
+            }
+        }
+        Long retryAfter = parseLong(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        if (retryAfter != null) {
+            pauseUntil(now.plusSeconds(retryAfter));
+        }
+    }
+
+    public int burst() {
+        return burst;
+    }
+
+    public synchronized double availableTokens() {
+        refill(clock.instant());
+        return tokens;
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("guidance.ratelimit.available", this, GuidanceRateLimiter::availableTokens)
+                .description("Tokens left in the AI rate-limit bucket")
+                .register(registry);
+        FunctionCounter.builder("guidance.ratelimit.rejected", rejected, LongAdder::sum)
+                .description("Guidance requests answered with a fallback because the rate limit was reached")
+                .register(registry);
+    }
+
+    private void refill(Instant now) {
+        long elapsedNanos = Duration.between(lastRefill, now).toNanos();
+        if (elapsedNanos > 0) {
+            tokens = Math.min(burst, tokens + elapsedNanos * perMinute / Duration.ofMinutes(1).toNanos());
+            lastRefill = now;
+        }
+    }
+
+    private void pauseUntil(Instant until) {
+        if (pausedUntil == null || until.isAfter(pausedUntil)) {
+            pausedUntil = until;
+        }
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) return null;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Parses OpenAI's reset durations, e.g. {@code 20ms}, {@code 1s} or {@code 6m0s}. */
+    static Duration parseDuration(String value) {
+        if (value == null || value.isBlank()) return null;
+        Matcher m = DURATION_PART.matcher(value.trim());
+        long millis = 0;
+        int end = 0;
+        while (m.find()) {
+            if (m.start() != end) return null;
+            double amount = Double.parseDouble(m.group(1));
+            millis += (long) (amount * switch (m.group(2)) {
+                case "h" -> 3_600_000;
+                case "m" -> 60_000;
+                case "s" -> 1_000;
+                default -> 1;
+            });
+            end = m.end();
+        }
+        return end == value.trim().length() && end > 0 ? Duration.ofMillis(millis) : null;
+    }
+}
@@ -1,19 +1,28 @@
 package com.goalsapp.service;
 
+import com.goalsapp.aop.TimedOperation;
+import com.goalsapp.dto.GoalItemView;
 import com.goalsapp.entity.Category;
-import com.goalsapp.entity.GoalItem;
+import com.goalsapp.entity.ResponseChain;
 import com.goalsapp.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 
-
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Service responsible for generating guidance messages for user goals.
@@ -23,72 +32,590 @@ import java.util.stream.Collectors;
  * (OpenAI-compatible API) or, when configuration is missing, by returning
  * a stubbed response for development and testing purposes.
  * </p>
+ *
+ * <p>
+ * Successful AI answers are kept in the {@link GuidanceCache}, so asking again
+ * for an unchanged list does not repeat the outbound call, and stored durably by
+ * the {@link GuidanceHistoryService}, which answers the same request after a restart
+ * or on another node.
+ * {@link #streamGuidance(User, Category, Consumer)} offers the same guidance as a
+ * stream of text deltas for progressive rendering.
+ * </p>
+ *
+ * <p>
+ * Outbound calls are made by the {@link GuidanceClient}, behind the circuit breaker,
+ * the rate limiter and the {@link GuidanceBulkhead}. When no request can be sent the
+ * user's last guidance is shown; when the bulkhead is saturated the caller gets a
+ * friendly "busy" message straight away, and a call that runs longer than
+ * {@code ai.http.total-timeout} is abandoned with a "taking too long" message.
+ * Concurrent identical requests (double clicks, several open tabs) share a single
+ * call through {@link SingleFlight}.
+ * </p>
+ *
+ * <p>
+ * {@link #generate(User, Category)} is the same request for background jobs: it
+ * throws a failed call instead of describing it, so the caller can retry.
+ * </p>
+ *
+ * <p>
+ * {@link #getFullPlan(User)} answers every category with one outbound call that
+ * asks for sectioned JSON, and files each section under its category's cache key,
+ * so the category pages show it without another call.
+ * </p>
+ *
+ * <p>
+ * Prompts are assembled by the {@link PromptBuilder}, which keeps long item lists
+ * within a per-category token budget. In incremental mode the client continues the
+ * list's last answer and sends just the added items; the {@link ResponseChain} to
+ * continue next time is stored with each answer.
+ * </p>
+ *
+ * <p>
+ * A list that is not cached but nearly identical to one answered before (one item
+ * added or reworded out of many) is answered with that earlier guidance, prefixed
+ * with a note saying so, when the {@link GuidanceSimilarityIndex} finds it similar enough.
+ * </p>
+ *
+ * <p>
+ * End-to-end latency is timed by {@link TimedOperation}; response sizes and prompt
+ * tokens are recorded by {@link GuidanceMetrics}, the outbound calls by the client.
+ * </p>
  */
 @Service
 public class GuidanceService {
 
-    private final GoalService goalService;
-    private final String guidanceSystemPrompt; // from XML
-    private final RestClient restClient = RestClient.create();
+    static final String BUSY = """
+            ⏳ Lots of guidance is being generated right now, so I can’t start yours yet.
+
+            Please try again in a moment 💗
+            """;
+    static final String TIMED_OUT = """
+            ⏳ The AI service is taking too long to answer, so I stopped waiting.
+
+            Please try again in a moment 💗
+            """;
+    static final String REUSED = """
+            ♻️ Your list is %d%% the same as when you last asked, so here is the guidance you got then.
+
+            """;
+    static final String UNAVAILABLE = """
+            ⚡ The AI service is unavailable right now, so I didn’t send a new request.
+            """;
 
-    @Value("${ai.openai.base-url:}")
-    private String aiBaseUrl;
+    private static final ObjectMapper JSON = new ObjectMapper();
 
-    @Value("${ai.openai.key:}")
-    private String aiApiKey;
+    /** Identical guidance requests: same user, category and prompt content. */
+    private record FlightKey(Long userId, Category category, String contentHash) {}
 
-    @Value("${ai.openai.model:gpt-4.1-mini}")
-    private String model;
+    /**
+     * Forwards deltas to one streaming client until it fails once, then drops the rest
+     * and keeps the failure for {@link #rethrowFailure()}.
+     */
+    private static final class ClientDeltas implements Consumer<String> {
+        private final Consumer<String> client;
+        private RuntimeException failure;
+
+        ClientDeltas(Consumer<String> client) {
+            this.client = client;
+        }
+
+        @Override
+        public void accept(String delta) {
+            if (failure != null) return;
+            try {
+                client.accept(delta);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        void rethrowFailure() {
+            if (failure != null) throw failure;
+        }
+    }
+
+    private final GoalService goalService;
+    private final GuidanceCache guidanceCache;
+    private final GuidanceHistoryService history;
+    private final GuidanceMetrics metrics;
+    private final PromptBuilder promptBuilder;
+    private final GuidanceSimilarityIndex similarityIndex;
+    private final GuidanceClient client;
+    private final String guidanceSystemPrompt; // from XML
+    private final SingleFlight<FlightKey, String> inFlight = new SingleFlight<>();
+    private final SingleFlight<FlightKey, Map<Category, String>> plansInFlight = new SingleFlight<>();
 
     public GuidanceService(GoalService goalService,
+                           GuidanceCache guidanceCache,
+                           GuidanceHistoryService history,
+                           GuidanceMetrics metrics,
+                           PromptBuilder promptBuilder,
+                           GuidanceSimilarityIndex similarityIndex,
+                           GuidanceClient client,
                            @Qualifier("guidanceSystemPrompt") String guidanceSystemPrompt) {
         this.goalService = goalService;
+        this.guidanceCache = guidanceCache;
+        this.history = history;
+        this.metrics = metrics;
+        this.promptBuilder = promptBuilder;
+        this.similarityIndex = similarityIndex;
+        this.client = client;
         this.guidanceSystemPrompt = guidanceSystemPrompt;
     }
 
+    @TimedOperation(value = "guidance.request", description = "End-to-end guidance latency")
     public String getGuidance(User user, Category category) {
 
-        System.out.println("OpenAI base-url loaded: " + aiBaseUrl);
-        System.out.println("OpenAI key loaded: " + (aiApiKey != null && !aiApiKey.isBlank()));
+        List<GoalItemView> items = goalService.list(user, category);
+        String list = promptBuilder.itemList(category, items);
+        String prompt = promptBuilder.prompt(category, list);
+        try {
+            return generate(user, category, items, list, prompt);
+        } catch (RuntimeException e) {
+            return describe(user, category, prompt, e);
+        }
+    }
 
-        List<GoalItem> items = goalService.list(user, category);
+    /**
+     * Like {@link #getGuidance(User, Category)}, but a failed call is thrown instead of
+     * being turned into a message, so background callers can decide to retry it
+     * (see {@link #isRetryable(RuntimeException)}).
+     *
+     * @throws GuidanceUnavailableException if no request could be sent (breaker open or rate limit reached)
+     * @throws BulkheadFullException if too many calls are already running
+     * @throws GuidanceTimeoutException if the call took longer than {@code ai.http.total-timeout}
+     * @throws RestClientException if the AI endpoint answered with an error or could not be reached
+     */
+    public String generate(User user, Category category) {
+        List<GoalItemView> items = goalService.list(user, category);
+        String list = promptBuilder.itemList(category, items);
+        return generate(user, category, items, list, promptBuilder.prompt(category, list));
+    }
 
-        String list = items.isEmpty()
-                ? "(no items yet)"
-                : items.stream().map(i -> "- " + i.getText()).collect(Collectors.joining("\n"));
+    private String generate(User user, Category category, List<GoalItemView> items, String list, String prompt) {
+        String contentKey = contentKey(category, list);
+        FlightKey flightKey = new FlightKey(user.getId(), category, contentKey);
 
-        String prompt = buildPrompt(category, list);
+        if (!usesAi()) {
+            return inFlight.execute(flightKey, () -> stubGuidance(prompt));
+        }
 
-        if (aiApiKey.isBlank() || aiBaseUrl.isBlank()) {
-            return """
-                   [STUB GUIDANCE]
-                   System: %s
+        Optional<String> cached = guidanceCache.get(contentKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // re-check inside the flight: an identical call may have finished since the lookup above
+        return inFlight.execute(flightKey, () -> guidanceCache.peek(contentKey)
+                .or(() -> stored(user, category, contentKey, list))
+                .or(() -> similar(user, category, list))
+                .orElseGet(() -> requestGuidance(user, category, contentKey, items, list, prompt)));
+    }
+
+    /**
+     * Streaming variant of {@link #getGuidance(User, Category)}.
+     *
+     * <p>
+     * Calls the Responses API with {@code stream=true} and hands every text delta
+     * to {@code onDelta} as soon as it arrives. Cached answers, the stub and error
+     * messages are delivered through the same callback, so callers only need one
+     * rendering path. Callers that join an identical stream already in progress
+     * receive the complete text as a single delta once it finishes.
+     * Blocks until the stream ends.
+     * </p>
+     *
+     * <p>
+     * Other callers may be waiting for the same answer, so a failing {@code onDelta}
+     * (typically the browser went away) does not end the call: further deltas are
+     * dropped, the answer is still read to the end, cached and stored, and only then
+     * is the consumer's exception rethrown to this caller.
+     * </p>
+     *
+     * @param onDelta receives the guidance text piece by piece, in order
+     * @return the complete guidance text
+     */
+    @TimedOperation(value = "guidance.request", description = "End-to-end guidance latency")
+    public String streamGuidance(User user, Category category, Consumer<String> onDelta) {
+        List<GoalItemView> items = goalService.list(user, category);
+        String list = promptBuilder.itemList(category, items);
+        String prompt = promptBuilder.prompt(category, list);
+        String contentKey = contentKey(category, list);
+        FlightKey flightKey = new FlightKey(user.getId(), category, contentKey);
+        AtomicBoolean leader = new AtomicBoolean();
+        // deltas sent from inside the shared flight; a failure here must not reach the followers
+        ClientDeltas clientDeltas = new ClientDeltas(onDelta);
+
+        String text;
+        if (!usesAi()) {
+            text = inFlight.execute(flightKey, () -> {
+                leader.set(true);
+                String stub = stubGuidance(prompt);
+                stub.lines().forEach(line -> clientDeltas.accept(line + "\n"));
+                return stub;
+            });
+        } else {
+            Optional<String> cached = guidanceCache.get(contentKey);
+            if (cached.isPresent()) {
+                onDelta.accept(cached.get());
+                return cached.get();
+            }
+            try {
+                text = inFlight.execute(flightKey, () -> {
+                    leader.set(true);
+                    Optional<String> finished = guidanceCache.peek(contentKey)
+                            .or(() -> stored(user, category, contentKey, list))
+                            .or(() -> similar(user, category, list));
+                    finished.ifPresent(clientDeltas);
+                    return finished.orElseGet(() -> requestStream(user, category, contentKey, items, list, prompt, clientDeltas));
+                });
+            } catch (RuntimeException e) {
+                // joined a generate() call that failed
+                text = describe(user, category, prompt, e);
+            }
+        }
+
+        if (!leader.get()) {
+            onDelta.accept(text);
+        }
+        clientDeltas.rethrowFailure();
+        return text;
+    }
+
+    /**
+     * Guidance for every category that has items, from at most one outbound call.
+     *
+     * <p>
+     * Categories whose current list already has an answer (cached or stored) are
+     * answered from it. The rest are covered by a single request whose answer is
+     * a JSON object with one field per category (a strict JSON schema in the
+     * Responses API {@code text.format}). Each section is cached and stored under
+     * the same key a single-category request would use. The call's token usage is
+     * split evenly across the stored sections.
+     * </p>
+     *
+     * @return guidance per category, in category order; categories without items are left out
+     */
+    @TimedOperation(value = "guidance.request", description = "End-to-end guidance latency")
+    public Map<Category, String> getFullPlan(User user) {
+        Map<Category, String> lists = new EnumMap<>(Category.class);
+        Map<Category, String> keys = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            List<GoalItemView> items = goalService.list(user, category);
+            if (items.isEmpty()) continue;
+            String list = promptBuilder.itemList(category, items);
+            lists.put(category, list);
+            keys.put(category, contentKey(category, list));
+        }
+
+        Map<Category, String> plan = new EnumMap<>(Category.class);
+        if (!usesAi()) {
+            lists.forEach((category, list) -> plan.put(category, stubGuidance(promptBuilder.prompt(category, list))));
+            return plan;
+        }
+
+        Map<Category, String> missing = new EnumMap<>(Category.class);
+        lists.forEach((category, list) -> guidanceCache.get(keys.get(category))
+                .or(() -> stored(user, category, keys.get(category), list))
+                .or(() -> similar(user, category, list))
+                .ifPresentOrElse(text -> plan.put(category, text), () -> missing.put(category, list)));
+
+        if (!missing.isEmpty()) {
+            // identical when the same lists are missing; the category is left out as it spans several
+            FlightKey flightKey = new FlightKey(user.getId(), null,
+                    String.join(",", missing.keySet().stream().map(keys::get).toList()));
+            plan.putAll(plansInFlight.execute(flightKey, () -> requestPlan(user, missing, keys)));
+        }
+        return plan;
+    }
+
+    private Map<Category, String> requestPlan(User user, Map<Category, String> lists, Map<Category, String> keys) {
+        String input = guidanceSystemPrompt + "\n\n" + promptBuilder.planPrompt(lists);
+
+        try {
+            ResponsesApiParser.Result result = client.ask(input, planFormat(lists.keySet()));
+
+            metrics.recordPromptTokens(GuidanceMetrics.FULL, result.inputTokens());
+            Map<Category, String> sections = splitPlan(result.text(), lists.keySet());
+            List<Category> answered = lists.keySet().stream().filter(sections::containsKey).toList();
+            // one call answered them all: each section is billed its estimated share of the usage
+            long[] inputTokens = apportion(result.inputTokens(),
+                    answered.stream().mapToInt(category -> TokenEstimator.estimate(lists.get(category))).toArray());
+            long[] outputTokens = apportion(result.outputTokens(),
+                    answered.stream().mapToInt(category -> TokenEstimator.estimate(sections.get(category))).toArray());
+
+            Map<Category, String> plan = new EnumMap<>(Category.class);
+            for (Category category : lists.keySet()) {
+                if (!sections.containsKey(category)) {
+                    plan.put(category, GuidanceClient.NO_RESPONSE.equals(result.text())
+                            ? GuidanceClient.NO_RESPONSE : GuidanceClient.UNPARSEABLE_RESPONSE);
+                }
+            }
+            for (int i = 0; i < answered.size(); i++) {
+                Category category = answered.get(i);
+                String section = sections.get(category);
+                // a section cannot be continued on its own, so no response chain is kept
+                keep(user, category, keys.get(category), lists.get(category),
+                        new ResponsesApiParser.Result(section, inputTokens[i], outputTokens[i]), null);
+                plan.put(category, section);
+            }
+            return plan;
+
+        } catch (GuidanceUnavailableException e) {
+            Map<Category, String> plan = new EnumMap<>(Category.class);
+            lists.forEach((category, list) -> plan.put(category,
+                    fallback(user, category, promptBuilder.prompt(category, list))));
+            return plan;
+        } catch (BulkheadFullException e) {
+            return sameForAll(lists.keySet(), BUSY);
+        } catch (GuidanceTimeoutException e) {
+            return sameForAll(lists.keySet(), TIMED_OUT);
+        } catch (RestClientException e) {
+            return sameForAll(lists.keySet(), describeFailure(e));
+        }
+    }
+
+    /**
+     * Splits {@code total} in proportion to {@code weights} (evenly if they are all zero).
+     * The parts add up to {@code total}: what rounding down leaves over goes, one each,
+     * to the parts with the largest remainders.
+     */
+    static long[] apportion(long total, int[] weights) {
+        long[] parts = new long[weights.length];
+        if (weights.length == 0 || total <= 0) return parts;
+        long weightSum = Arrays.stream(weights).asLongStream().sum();
+        long divisor = weightSum == 0 ? weights.length : weightSum;
+
+        long[] remainders = new long[weights.length];
+        long left = total;
+        for (int i = 0; i < weights.length; i++) {
+            long scaled = total * (weightSum == 0 ? 1 : weights[i]);
+            parts[i] = scaled / divisor;
+            remainders[i] = scaled % divisor;
+            left -= parts[i];
+        }
+        for (; left > 0; left--) {
+            int largest = 0;
+            for (int i = 1; i < remainders.length; i++) {
+                if (remainders[i] > remainders[largest]) largest = i;
+            }
+            parts[largest]++;
+            remainders[largest] = -1;
+        }
+        return parts;
+    }
 
-                   Prompt:
-                   %s
+    /** Strict JSON schema for a plan: one required string field per category. */
+    private static Map<String, Object> planFormat(Set<Category> categories) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        categories.forEach(category -> properties.put(category.name(), Map.of("type", "string")));
+        return Map.of(
+                "type", "json_schema",
+                "name", "full_plan",
+                "strict", true,
+                "schema", Map.of(
+                        "type", "object",
+                        "properties", properties,
+                        "required", categories.stream().map(Category::name).toList(),
+                        "additionalProperties", false));
+    }
 
-                   (To enable real AI: set ai.openai.base-url and ai.openai.key)
-                   """.formatted(guidanceSystemPrompt, prompt);
+    /**
+     * Splits a plan answer into its sections.
+     *
+     * @return the non-blank sections found; empty if the text is not a JSON object
+     */
+    static Map<Category, String> splitPlan(String text, Set<Category> categories) {
+        Map<Category, String> sections = new EnumMap<>(Category.class);
+        JsonNode plan;
+        try {
+            plan = JSON.readTree(text);
+        } catch (JsonProcessingException e) {
+            return sections;
+        }
+        for (Category category : categories) {
+            JsonNode section = plan.path(category.name());
+            if (section.isTextual() && !section.asText().isBlank()) {
+                sections.put(category, section.asText());
+            }
         }
+        return sections;
+    }
 
-        // OpenAI Responses API format
-        Map<String, Object> body = Map.of(
-                "model", model,
-                "input", guidanceSystemPrompt + "\n\n" + prompt
-        );
+    private static Map<Category, String> sameForAll(Set<Category> categories, String message) {
+        Map<Category, String> plan = new EnumMap<>(Category.class);
+        categories.forEach(category -> plan.put(category, message));
+        return plan;
+    }
+
+    private String requestGuidance(User user, Category category, String cacheKey,
+                                   List<GoalItemView> items, String list, String prompt) {
+        GuidanceClient.Sent sent = client.respond(user, category, items, prompt);
+
+        ResponsesApiParser.Result result = sent.result();
+        String text = result.text();
+        if (!GuidanceClient.NO_RESPONSE.equals(text) && !GuidanceClient.UNPARSEABLE_RESPONSE.equals(text)) {
+            metrics.recordPromptTokens(sent.turn().mode(), result.inputTokens());
+            keep(user, category, cacheKey, list, result, sent.chain(client.basis(category)));
+        }
+        return text;
+    }
 
+    private String requestStream(User user, Category category, String cacheKey, List<GoalItemView> items,
+                                 String list, String prompt, Consumer<String> onDelta) {
         try {
-            Map<?, ?> resp = restClient.post()
-                    .uri(aiBaseUrl)
-                    .header("Authorization", "Bearer " + aiApiKey)
-                    .header("Content-Type", "application/json")
-                    .body(body)
-                    .retrieve()
-                    .body(Map.class);
+            GuidanceClient.Sent sent = client.stream(user, category, items, prompt, onDelta);
+
+            ResponsesApiParser.Result result = sent.result();
+            if (result.text().isEmpty()) {
+                onDelta.accept(GuidanceClient.UNPARSEABLE_RESPONSE);
+                return GuidanceClient.UNPARSEABLE_RESPONSE;
+            }
+            metrics.recordPromptTokens(sent.turn().mode(), result.inputTokens());
+            keep(user, category, cacheKey, list, result, sent.chain(client.basis(category)));
+            return result.text();
+
+        } catch (GuidanceUnavailableException e) {
+            String fallback = fallback(user, category, prompt);
+            onDelta.accept(fallback);
+            return fallback;
+        } catch (BulkheadFullException e) {
+            onDelta.accept(BUSY);
+            return BUSY;
+        } catch (GuidanceTimeoutException e) {
+            onDelta.accept(TIMED_OUT);
+            return TIMED_OUT;
+        } catch (RestClientException e) {
+            String message = describeFailure(e);
+            onDelta.accept(message);
+            return message;
+        }
+    }
+
+    /**
+     * Answers from the stored history and warms the in-memory cache and the
+     * similarity index with it.
+     */
+    private Optional<String> stored(User user, Category category, String cacheKey, String list) {
+        Optional<String> text = history.find(user.getId(), cacheKey);
+        text.ifPresent(t -> {
+            guidanceCache.put(user.getId(), category, cacheKey, t);
+            similarityIndex.add(user.getId(), category, client.basis(category), list, t);
+        });
+        return text;
+    }
+
+    /**
+     * Reuses the user's answer for a nearly identical list, marked as such. It is
+     * neither stored nor indexed, so later edits are compared with the list that was
+     * actually answered and eventually ask afresh. Nor is it cached: the cache is
+     * keyed by content alone, and another user with this exact list should get an
+     * answer of their own rather than this one.
+     */
+    private Optional<String> similar(User user, Category category, String list) {
+        return similarityIndex.find(user.getId(), category, client.basis(category), list)
+                .map(match -> REUSED.formatted(Math.round(match.similarity() * 100)) + match.guidance());
+    }
+
+    /** Caches, indexes and stores a fresh answer from the AI endpoint. */
+    private void keep(User user, Category category, String cacheKey, String list, ResponsesApiParser.Result result,
+                      ResponseChain chain) {
+        metrics.recordResponse(result.text());
+        guidanceCache.put(user.getId(), category, cacheKey, result.text());
+        similarityIndex.add(user.getId(), category, client.basis(category), list, result.text());
+        history.record(user, category, cacheKey, client.model(), result.inputTokens(), result.outputTokens(), result.text(), chain);
+    }
+
+    /**
+     * Generates and caches guidance for a category before anyone asks for it, so the
+     * next request is answered from the cache. Nothing is done if an answer for the
+     * current list is already cached, if the list is empty, or in stub mode.
+     *
+     * @return {@code true} if an answer was generated (or loaded from history) and cached
+     * @throws RuntimeException the same failures as {@link #generate(User, Category)}
+     */
+    public boolean precompute(User user, Category category) {
+        List<GoalItemView> items = goalService.list(user, category);
+        if (!usesAi() || items.isEmpty()) {
+            return false;
+        }
+        String list = promptBuilder.itemList(category, items);
+        String contentKey = contentKey(category, list);
+        if (guidanceCache.peek(contentKey).isPresent()) {
+            return false;
+        }
+        generate(user, category, items, list, promptBuilder.prompt(category, list));
+        return guidanceCache.markPrecomputed(contentKey);
+    }
 
-            return extractText(resp);
+    /** Whether answers come from the AI endpoint; without its URL and key the stub is used. */
+    public boolean usesAi() {
+        return client.isConfigured();
+    }
 
-        } catch (HttpClientErrorException.TooManyRequests e) {
+    /**
+     * Whether a failure thrown by {@link #generate(User, Category)} may go away on its
+     * own: no request could be sent, the call timed out or was cancelled (a worker
+     * stopping), or the endpoint reported an outage (429, 5xx or a network error).
+     * Other client errors will not.
+     */
+    public static boolean isRetryable(RuntimeException e) {
+        if (e instanceof GuidanceUnavailableException
+                || e instanceof BulkheadFullException
+                || e instanceof GuidanceTimeoutException
+                || e instanceof CancellationException) {
+            return true;
+        }
+        return e instanceof RestClientException restClientException && GuidanceClient.isOutage(restClientException);
+    }
+
+    /**
+     * The message {@link #getGuidance(User, Category)} would have shown for a failure
+     * thrown by {@link #generate(User, Category)}.
+     */
+    public String failureMessage(User user, Category category, RuntimeException e) {
+        String list = promptBuilder.itemList(category, goalService.list(user, category));
+        return describe(user, category, promptBuilder.prompt(category, list), e);
+    }
+
+    /** Turns a failed call into the message shown to the user; anything unexpected is rethrown. */
+    private String describe(User user, Category category, String prompt, RuntimeException e) {
+        if (e instanceof GuidanceUnavailableException) return fallback(user, category, prompt);
+        if (e instanceof BulkheadFullException) return BUSY;
+        if (e instanceof GuidanceTimeoutException) return TIMED_OUT;
+        if (e instanceof RestClientException restClientException) return describeFailure(restClientException);
+        throw e;
+    }
+
+    /**
+     * Answer used while no request can be sent: the user's last guidance for this
+     * category if there is one, otherwise the stub.
+     */
+    private String fallback(User user, Category category, String prompt) {
+        return guidanceCache.lastKnown(user.getId(), category)
+                .or(() -> history.latest(user.getId(), category))
+                .map(last -> UNAVAILABLE + "Here is your most recent guidance (it may not include your newest items):\n\n" + last)
+                .orElseGet(() -> UNAVAILABLE + "\n" + stubGuidance(prompt));
+    }
+
+    /** Cache and history key of a category's list. */
+    private String contentKey(Category category, String list) {
+        return GuidanceCache.key(guidanceSystemPrompt, client.model(), category, list);
+    }
+
+    String stubGuidance(String prompt) {
+        return """
+               [STUB GUIDANCE]
+               System: %s
+
+               Prompt:
+               %s
+
+               (To enable real AI: set ai.openai.base-url and ai.openai.key)
+               """.formatted(guidanceSystemPrompt, prompt);
+    }
+
+    private String describeFailure(RestClientException e) {
+        if (e instanceof HttpClientErrorException.TooManyRequests tooManyRequests) {
             return """
             💗 I can’t generate guidance right now (OpenAI says: insufficient quota).
 
@@ -99,9 +626,9 @@ public class GuidanceService {
 
             Technical:
             %s
-            """.formatted(e.getResponseBodyAsString());
-
-        } catch (HttpClientErrorException.Unauthorized e) {
+            """.formatted(tooManyRequests.getResponseBodyAsString());
+        }
+        if (e instanceof HttpClientErrorException.Unauthorized unauthorized) {
             return """
             🥺 Authentication failed (401 Unauthorized).
 
@@ -112,84 +639,21 @@ public class GuidanceService {
 
             Technical:
             %s
-            """.formatted(e.getResponseBodyAsString());
-
-        } catch (HttpClientErrorException e) {
+            """.formatted(unauthorized.getResponseBodyAsString());
+        }
+        if (e instanceof HttpClientErrorException clientError) {
             return """
             ⚠️ OpenAI request failed (%s)
 
             Technical:
             %s
-            """.formatted(e.getStatusCode(), e.getResponseBodyAsString());
-
-        } catch (RestClientException e) {
-            return """
+            """.formatted(clientError.getStatusCode(), clientError.getResponseBodyAsString());
+        }
+        return """
             ⚠️ Network / client error while calling OpenAI.
 
             Technical:
             %s
             """.formatted(e.getMessage());
-        }
-
-    }
-
-    private String extractText(Map<?, ?> resp) {
-        if (resp == null) return "No response from OpenAI.";
-
-        try {
-            Object outputObj = resp.get("output");
-            if (outputObj instanceof List<?> outputList && !outputList.isEmpty()) {
-                Object first = outputList.get(0);
-                if (first instanceof Map<?, ?> firstMap) {
-                    Object contentObj = firstMap.get("content");
-                    if (contentObj instanceof List<?> contentList && !contentList.isEmpty()) {
-                        Object c0 = contentList.get(0);
-                        if (c0 instanceof Map<?, ?> c0map) {
-                            Object text = c0map.get("text");
-                            if (text instanceof String s && !s.isBlank()) return s;
-                        }
-                    }
-                }
-            }
-        } catch (Exception ignored) {}
-
-        return "Could not parse OpenAI response.";
-    }
-
-    private String buildPrompt(Category category, String itemsList) {
-        return switch (category) {
-            case SHORT_TERM -> """
-                    These are my short-term goals:
-                    %s
-
-                    Please give detailed advice on how I can smoothly achieve them.
-                    Provide:
-                    1) Step-by-step plan
-                    2) Weekly schedule
-                    3) Risks + mitigations
-                    """.formatted(itemsList);
-
-            case LONG_TERM -> """
-                    These are my long-term goals:
-                    %s
-
-                    Help me break them into milestones with realistic timelines.
-                    Provide milestones + 90-day action plan.
-                    """.formatted(itemsList);
-
-            case TODO -> """
-                    These are my TODO items:
-                    %s
-
-                    Help me prioritize and propose a 7-day plan.
-                    """.formatted(itemsList);
-
-            case WISH -> """
-                    These are items on my wish list:
-                    %s
-
-                    Help me turn realistic ones into goals, with budgeting/time planning.
-                    """.formatted(itemsList);
-        };
     }
 }
@@ -0,0 +1,304 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds earlier guidance for a list that is almost, but not exactly, the same.
+ *
+ * <p>
+ * The {@link GuidanceCache} only helps when the rendered item list is unchanged;
+ * adding or rewording one item out of fifty already needs a new AI call. This index
+ * keeps, per user and category, the latest answers together with a MinHash signature
+ * of the list they were given for. A rendered list is reduced to its word
+ * {@value #SHINGLE_WORDS}-shingles, and each of the {@value #HASHES} hash functions
+ * keeps the smallest hash over those shingles; the share of equal positions in two
+ * signatures estimates the Jaccard similarity of the shingle sets.
+ * </p>
+ *
+ * <p>
+ * Candidates are found by locality-sensitive hashing: each signature is split into
+ * {@value #BANDS} bands, and only answers that share a whole band with the new list
+ * are compared. An answer is reused when its estimated similarity reaches
+ * {@code ai.guidance.similarity.threshold} and it was generated with the same system
+ * prompt and model. Everything is computed locally; no embedding service is needed.
+ * </p>
+ *
+ * <p>
+ * At most {@code ai.guidance.similarity.max-per-scope} answers are kept per user and
+ * category (oldest dropped first) and at most {@code ai.guidance.similarity.max-scopes}
+ * users and categories (least recently used dropped first). Lookups are counted as
+ * {@code guidance.similarity.lookups} (tagged {@code hit} or {@code miss}), with
+ * {@code guidance.similarity.hit_rate}, {@code guidance.similarity.entries} and an
+ * estimate of the memory held in {@code guidance.similarity.memory}.
+ * </p>
+ */
+@Component
+public class GuidanceSimilarityIndex implements MeterBinder {
+
+    static final int HASHES = 128;
+    static final int BANDS = 32;
+    static final int ROWS = HASHES / BANDS;
+    static final int SHINGLE_WORDS = 3;
+
+    /** Rough per-entry cost beyond the text: object headers, the signature array and its bucket slots. */
+    private static final long ENTRY_OVERHEAD_BYTES = 96 + HASHES * 4L + BANDS * 48L;
+
+    private static final long[] SEEDS = new SplittableRandom(0x6D696E68617368L).longs(HASHES).toArray();
+
+    /**
+     * An earlier answer for a similar list.
+     *
+     * @param similarity the estimated Jaccard similarity of the two lists, between 0 and 1
+     */
+    public record Match(String guidance, double similarity) {}
+
+    private record Entry(String basis, int[] signature, String guidance) {
+
+        long bytes() {
+            return ENTRY_OVERHEAD_BYTES + 2L * (basis.length() + guidance.length());
+        }
+    }
+
+    /** The answers kept for one user and category, with their LSH buckets. */
+    private static final class ScopeIndex {
+        final ArrayDeque<Entry> entries = new ArrayDeque<>();
+        final Map<Long, List<Entry>> buckets = new HashMap<>();
+
+        void add(Entry entry) {
+            entries.addLast(entry);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bandKey(entry.signature(), band), k -> new ArrayList<>(1)).add(entry);
+            }
+        }
+
+        void remove(Entry entry) {
+            entries.remove(entry);
+            for (int band = 0; band < BANDS; band++) {
+                long key = bandKey(entry.signature(), band);
+                List<Entry> bucket = buckets.get(key);
+                if (bucket == null) continue;
+                bucket.remove(entry);
+                if (bucket.isEmpty()) buckets.remove(key);
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final double threshold;
+    private final int maxPerScope;
+
+    // access-ordered, so iteration starts at the least recently used scope
+    private final LinkedHashMap<GuidanceCache.Scope, ScopeIndex> scopes;
+    private long entries;
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public GuidanceSimilarityIndex(@Value("${ai.guidance.similarity.enabled:false}") boolean enabled,
+                                   @Value("${ai.guidance.similarity.threshold:0.9}") double threshold,
+                                   @Value("${ai.guidance.similarity.max-per-scope:5}") int maxPerScope,
+                                   @Value("${ai.guidance.similarity.max-scopes:500}") int maxScopes) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("ai.guidance.similarity.threshold must be above 0 and at most 1.");
+        }
+        if (maxPerScope < 1 || maxScopes < 1) {
+            throw new IllegalArgumentException("ai.guidance.similarity.max-per-scope and max-scopes must be at least 1.");
+        }
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.maxPerScope = maxPerScope;
+        this.scopes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GuidanceCache.Scope, ScopeIndex> eldest) {
+                if (size() <= maxScopes) return false;
+                eldest.getValue().entries.forEach(GuidanceSimilarityIndex.this::forget);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Remembers an answer for a rendered item list. An earlier answer for a list with
+     * the same signature is replaced.
+     *
+     * @param basis identifies the system prompt and model the answer was generated with
+     */
+    public void add(Long userId, Category category, String basis, String renderedItems, String guidance) {
+        if (!enabled) return;
+        Entry entry = new Entry(basis, signature(renderedItems), guidance);
+        synchronized (this) {
+            ScopeIndex index = scopes.computeIfAbsent(new GuidanceCache.Scope(userId, category), s -> new ScopeIndex());
+            for (Entry existing : List.copyOf(index.entries)) {
+                if (existing.basis().equals(basis) && Arrays.equals(existing.signature(), entry.signature())) {
+                    index.remove(existing);
+                    forget(existing);
+                }
+            }
+            index.add(entry);
+            entries++;
+            bytes += entry.bytes();
+            while (index.entries.size() > maxPerScope) {
+                Entry oldest = index.entries.peekFirst();
+                index.remove(oldest);
+                forget(oldest);
+            }
+        }
+    }
+
+    /**
+     * Finds the most similar earlier answer for the same user, category, system prompt
+     * and model, if one reaches the threshold.
+     */
+    public Optional<Match> find(Long userId, Category category, String basis, String renderedItems) {
+        if (!enabled) return Optional.empty();
+        int[] signature = signature(renderedItems);
+        Match best = null;
+        synchronized (this) {
+            ScopeIndex index = scopes.get(new GuidanceCache.Scope(userId, category));
+            if (index != null) {
+                Set<Entry> candidates = new HashSet<>();
+                for (int band = 0; band < BANDS; band++) {
+                    candidates.addAll(index.buckets.getOrDefault(bandKey(signature, band), List.of()));
+                }
+                for (Entry candidate : candidates) {
+                    double similarity = similarity(signature, candidate.signature());
+                    if (candidate.basis().equals(basis) && similarity >= threshold
+                            && (best == null || similarity > best.similarity())) {
+                        best = new Match(candidate.guidance(), similarity);
+                    }
+                }
+            }
+        }
+        (best == null ? misses : hits).increment();
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * The MinHash signature of a rendered item list: for each hash function, the
+     * smallest hash over the list's word shingles. Case, punctuation and spacing are ignored.
+     */
+    static int[] signature(String renderedItems) {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long shingle : shingles(renderedItems)) {
+            for (int i = 0; i < HASHES; i++) {
+                int hash = (int) (mix(shingle ^ SEEDS[i]) >>> 33);
+                if (hash < signature[i]) signature[i] = hash;
+            }
+        }
+        return signature;
+    }
+
+    /** The share of equal positions, which estimates the Jaccard similarity of the shingle sets. */
+    static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) equal++;
+        }
+        return (double) equal / HASHES;
+    }
+
+    private static Set<Long> shingles(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        List<String> tokens = Arrays.stream(words).filter(w -> !w.isEmpty()).toList();
+        Set<Long> shingles = new HashSet<>();
+        for (int i = 0; i + SHINGLE_WORDS <= tokens.size(); i++) {
+            shingles.add(hash(String.join(" ", tokens.subList(i, i + SHINGLE_WORDS))));
+        }
+        if (shingles.isEmpty()) {
+            // fewer words than one shingle
+            shingles.add(hash(String.join(" ", tokens)));
+        }
+        return shingles;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = mix(key * 31 + signature[row]);
+        }
+        return key;
+    }
+
+    private static long hash(String shingle) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < shingle.length(); i++) {
+            h = 31 * h + shingle.charAt(i);
+        }
+        return mix(h);
+    }
+
+    /** The 64-bit finalizer of MurmurHash3, to spread the bits of a hash. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void forget(Entry entry) {
+        entries--;
+        bytes -= entry.bytes();
+    }
+
+    /** Answers currently indexed. */
+    public synchronized long size() {
+        return entries;
+    }
+
+    /** Estimated heap held by the indexed answers and their signatures, in bytes. */
+    public synchronized long memoryBytes() {
+        return bytes;
+    }
+
+    double hitRate() {
+        long found = hits.sum();
+        long lookups = found + misses.sum();
+        return lookups == 0 ? 0 : (double) found / lookups;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("guidance.similarity.lookups", hits, LongAdder::sum)
+                .description("Near-duplicate guidance lookups")
+                .tag("outcome", "hit")
+                .register(registry);
+        FunctionCounter.builder("guidance.similarity.lookups", misses, LongAdder::sum)
+                .description("Near-duplicate guidance lookups")
+                .tag("outcome", "miss")
+                .register(registry);
+        Gauge.builder("guidance.similarity.hit_rate", this, GuidanceSimilarityIndex::hitRate)
+                .description("Share of near-duplicate lookups that found earlier guidance")
+                .register(registry);
+        Gauge.builder("guidance.similarity.entries", this, GuidanceSimilarityIndex::size)
+                .description("Answers held in the near-duplicate index")
+                .register(registry);
+        Gauge.builder("guidance.similarity.memory", this, GuidanceSimilarityIndex::memoryBytes)
+                .description("Estimated heap held by the near-duplicate index")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
@@ -0,0 +1,12 @@
+package com.goalsapp.service;
+
+/**
+ * Thrown by {@link GuidanceBulkhead} when an outbound call runs longer than
+ * its total timeout ({@code ai.http.total-timeout}).
+ */
+public class GuidanceTimeoutException extends RuntimeException {
+
+    public GuidanceTimeoutException(String message) {
+        super(message);
+    }
+}
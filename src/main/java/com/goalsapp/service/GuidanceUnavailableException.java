@@ -0,0 +1,12 @@
+package com.goalsapp.service;
+
+/**
+ * Thrown when an outbound guidance call is not attempted because the
+ * {@link GuidanceCircuitBreaker} is open or the {@link GuidanceRateLimiter} is empty.
+ */
+public class GuidanceUnavailableException extends RuntimeException {
+
+    public GuidanceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,236 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.entity.Category;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a category's items into the user prompt for a guidance request.
+ *
+ * <p>
+ * The item list is kept within a token budget per category
+ * ({@code ai.guidance.prompt.budget.<category>}, falling back to
+ * {@code ai.guidance.prompt.budget.default}), measured with {@link TokenEstimator}.
+ * A list that fits is rendered unchanged. A longer list is compacted
+ * deterministically: items are taken newest first, near-identical items (same text
+ * ignoring case, punctuation and spacing) are listed once, texts longer than
+ * {@code ai.guidance.prompt.max-item-chars} are shortened, and items are added until
+ * the budget is used up. The prompt then says how many items were left out, so the
+ * model knows it is looking at part of the list.
+ * </p>
+ *
+ * <p>
+ * {@link #planPrompt(Map)} combines several categories into one prompt whose answer
+ * comes back as JSON with one field per category, and
+ * {@link #continuationPrompt(String)} follows up an earlier answer with
+ * only the items added since.
+ * </p>
+ */
+@Component
+public class PromptBuilder {
+
+    static final String NO_ITEMS = "(no items yet)";
+
+    private static final Comparator<GoalItemView> NEWEST_FIRST = Comparator
+            .comparing(GoalItemView::createdAt, Comparator.nullsLast(Comparator.<Instant>reverseOrder()))
+            .thenComparing(GoalItemView::id, Comparator.nullsLast(Comparator.<Long>reverseOrder()));
+
+    private final Map<Category, Integer> budgets;
+    private final int maxItemChars;
+
+    @Autowired
+    public PromptBuilder(@Value("${ai.guidance.prompt.budget.long-term:${ai.guidance.prompt.budget.default:1500}}") int longTermBudget,
+                         @Value("${ai.guidance.prompt.budget.short-term:${ai.guidance.prompt.budget.default:1500}}") int shortTermBudget,
+                         @Value("${ai.guidance.prompt.budget.todo:${ai.guidance.prompt.budget.default:1500}}") int todoBudget,
+                         @Value("${ai.guidance.prompt.budget.wish:${ai.guidance.prompt.budget.default:1500}}") int wishBudget,
+                         @Value("${ai.guidance.prompt.max-item-chars:200}") int maxItemChars) {
+        this(Map.of(Category.LONG_TERM, longTermBudget,
+                Category.SHORT_TERM, shortTermBudget,
+                Category.TODO, todoBudget,
+                Category.WISH, wishBudget), maxItemChars);
+    }
+
+    PromptBuilder(Map<Category, Integer> budgets, int maxItemChars) {
+        if (maxItemChars < 20) {
+            throw new IllegalArgumentException("ai.guidance.prompt.max-item-chars must be at least 20.");
+        }
+        this.budgets = new EnumMap<>(budgets);
+        for (Category category : Category.values()) {
+            if (this.budgets.getOrDefault(category, 0) < 1) {
+                throw new IllegalArgumentException("ai.guidance.prompt.budget needs a positive value for " + category + ".");
+            }
+        }
+        this.maxItemChars = maxItemChars;
+    }
+
+    public int budget(Category category) {
+        return budgets.get(category);
+    }
+
+    /**
+     * Renders the items as a bullet list that fits the category's token budget.
+     */
+    public String itemList(Category category, List<GoalItemView> items) {
+        if (items.isEmpty()) {
+            return NO_ITEMS;
+        }
+
+        int budget = budgets.get(category);
+        List<String> lines = new ArrayList<>(items.size());
+        int tokens = 0;
+        for (GoalItemView item : items) {
+            String line = "- " + item.text();
+            lines.add(line);
+            tokens += TokenEstimator.estimate(line) + 1;
+            if (tokens > budget) {
+                return compact(items, budget);
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    private String compact(List<GoalItemView> items, int budget) {
+        List<GoalItemView> newestFirst = new ArrayList<>(items);
+        newestFirst.sort(NEWEST_FIRST);
+
+        int available = budget - TokenEstimator.estimate(omittedNote(items.size())) - 1;
+        StringBuilder list = new StringBuilder();
+        Set<String> seen = new HashSet<>();
+        int used = 0;
+        int included = 0;
+        for (GoalItemView item : newestFirst) {
+            if (!seen.add(normalize(item.text()))) {
+                continue;
+            }
+            String line = "- " + truncate(item.text());
+            int cost = TokenEstimator.estimate(line) + 1;
+            if (used + cost > available) {
+                break;
+            }
+            list.append(line).append('\n');
+            used += cost;
+            included++;
+        }
+        return list.append(omittedNote(items.size() - included)).toString();
+    }
+
+    private static String omittedNote(int omitted) {
+        return "(%d older or repeated items omitted to keep this list short)".formatted(omitted);
+    }
+
+    /** Lower-cased letters and digits only, single-spaced: near-identical texts map to the same key. */
+    static String normalize(String text) {
+        StringBuilder key = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && !key.isEmpty()) key.append(' ');
+                key.append(c);
+                space = false;
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            }
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /** Cuts a long text at a word boundary near {@code maxItemChars} and marks the cut. */
+    String truncate(String text) {
+        if (text.length() <= maxItemChars) {
+            return text;
+        }
+        int end = text.lastIndexOf(' ', maxItemChars - 1);
+        if (end < maxItemChars / 2) {
+            end = maxItemChars - 1;
+            if (Character.isHighSurrogate(text.charAt(end - 1))) end--;
+        }
+        return text.substring(0, end).stripTrailing() + "…";
+    }
+
+    /**
+     * Wraps the rendered item list in the category's instructions.
+     */
+    public String prompt(Category category, String itemList) {
+        return switch (category) {
+            case SHORT_TERM -> """
+                    These are my short-term goals:
+                    %s
+
+                    Please give detailed advice on how I can smoothly achieve them.
+                    Provide:
+                    1) Step-by-step plan
+                    2) Weekly schedule
+                    3) Risks + mitigations
+                    """.formatted(itemList);
+
+            case LONG_TERM -> """
+                    These are my long-term goals:
+                    %s
+
+                    Help me break them into milestones with realistic timelines.
+                    Provide milestones + 90-day action plan.
+                    """.formatted(itemList);
+
+            case TODO -> """
+                    These are my TODO items:
+                    %s
+
+                    Help me prioritize and propose a 7-day plan.
+                    """.formatted(itemList);
+
+            case WISH -> """
+                    These are items on my wish list:
+                    %s
+
+                    Help me turn realistic ones into goals, with budgeting/time planning.
+                    """.formatted(itemList);
+        };
+    }
+
+    /**
+     * Follow-up to an earlier answer about the same list (sent with
+     * {@code previous_response_id}), listing only the items added since.
+     *
+     * @param addedItems the rendered list of the added items
+     */
+    public String continuationPrompt(String addedItems) {
+        return """
+                Since your last answer I have added these items to the same list:
+                %s
+
+                Please give your complete advice again for the whole list, new items included,
+                in the same format as before.
+                """.formatted(addedItems);
+    }
+
+    /**
+     * Combines the prompts of several categories into one request, each under a
+     * heading named after the JSON field its answer belongs in.
+     *
+     * @param itemLists the rendered item list of every category to cover
+     */
+    public String planPrompt(Map<Category, String> itemLists) {
+        StringBuilder prompt = new StringBuilder("""
+                I would like advice on several of my lists at once.
+                Answer each section below on its own, as you would if it were asked alone,
+                and put the answer in the JSON field named after the section.
+                """);
+        itemLists.forEach((category, list) -> prompt
+                .append("\n## ").append(category.name()).append("\n")
+                .append(prompt(category, list)));
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.goalsapp.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulls the answer text and token usage out of a Responses API body in a single
+ * streaming pass.
+ *
+ * <p>
+ * Only the response {@code id}, {@code output[*].content[*].text} and
+ * {@code usage.input_tokens}/{@code output_tokens} are read; every other field (metadata, reasoning, tool definitions, annotations...)
+ * is skipped token by token without building a tree. Text parts of all {@code message}
+ * output items are joined in order, like the API's own {@code output_text}; other
+ * output items (reasoning, tool calls) and non-text parts (refusals) are ignored.
+ * </p>
+ */
+final class ResponsesApiParser {
+
+    /**
+     * What was found in a response.
+     *
+     * @param text the joined text parts; empty if there were none
+     * @param inputTokens prompt tokens billed, or {@code 0} if not reported
+     * @param outputTokens completion tokens billed, or {@code 0} if not reported
+     * @param responseId the response's id, for {@code previous_response_id}; {@code null} if not reported
+     */
+    record Result(String text, long inputTokens, long outputTokens, String responseId) {
+
+        Result(String text, long inputTokens, long outputTokens) {
+            this(text, inputTokens, outputTokens, null);
+        }
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private ResponsesApiParser() {}
+
+    /**
+     * Parses a response body.
+     *
+     * @return the result, or {@code null} if the body is empty
+     * @throws IOException if the body cannot be read or is not a JSON object
+     */
+    static Result parse(InputStream body) throws IOException {
+        try (JsonParser p = JSON.createParser(body)) {
+            JsonToken first = p.nextToken();
+            if (first == null) {
+                return null;
+            }
+            expect(p, first, JsonToken.START_OBJECT);
+
+            List<String> texts = new ArrayList<>(1);
+            long inputTokens = 0;
+            long outputTokens = 0;
+            String responseId = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("id".equals(field) && value == JsonToken.VALUE_STRING) {
+                    responseId = p.getText();
+                } else if ("output".equals(field) && value == JsonToken.START_ARRAY) {
+                    readOutput(p, texts);
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        if ("input_tokens".equals(name)) inputTokens = p.getValueAsLong();
+                        else if ("output_tokens".equals(name)) outputTokens = p.getValueAsLong();
+                        else p.skipChildren();
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            // the usual single-part answer is returned without copying it again
+            String text = texts.size() == 1 ? texts.get(0) : String.join("", texts);
+            return new Result(text, inputTokens, outputTokens, responseId);
+        }
+    }
+
+    /** Reads {@code output[]}; the parser is on its {@code START_ARRAY}. */
+    private static void readOutput(JsonParser p, List<String> texts) throws IOException {
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            // field order is not guaranteed, so keep the parts until the item's type is known
+            String type = null;
+            List<String> parts = new ArrayList<>(1);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("type".equals(field)) {
+                    type = p.getValueAsString();
+                    p.skipChildren();
+                } else if ("content".equals(field) && value == JsonToken.START_ARRAY) {
+                    readContent(p, parts);
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (type == null || "message".equals(type)) {
+                texts.addAll(parts);
+            }
+        }
+    }
+
+    /** Reads one item's {@code content[]}; the parser is on its {@code START_ARRAY}. */
+    private static void readContent(JsonParser p, List<String> parts) throws IOException {
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            String type = null;
+            String partText = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("type".equals(field)) {
+                    type = p.getValueAsString();
+                    p.skipChildren();
+                } else if ("text".equals(field) && value == JsonToken.VALUE_STRING) {
+                    partText = p.getText();
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (partText != null && (type == null || "output_text".equals(type))) {
+                parts.add(partText);
+            }
+        }
+    }
+
+    private static void expect(JsonParser p, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(p, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.goalsapp.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls that share a key into a single execution.
+ *
+ * <p>
+ * The first caller for a key runs the work; every caller that arrives while it is
+ * still running waits for and receives the same result (or the same exception).
+ * Once the work finishes the key is released, so later calls run again.
+ * </p>
+ *
+ * <p>
+ * A waiter receives the leader's exception itself, not a wrapper, so callers can
+ * catch it by type. A waiter that is interrupted stops waiting with a
+ * {@link CancellationException} and keeps its interrupt flag; the leader carries on.
+ * </p>
+ *
+ * @param <K> the key type; must implement {@code equals}/{@code hashCode}
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs {@code work} unless a call with the same key is already running,
+     * in which case its result is shared.
+     */
+    public V execute(K key, Supplier<V> work) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        try {
+            V result = work.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, mine);
+        }
+    }
+
+    /** Number of calls that were served by another caller's execution. */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /** Number of keys currently being executed. */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException("Interrupted while waiting for a shared call.");
+            cancelled.initCause(e);
+            throw cancelled;
+        } catch (ExecutionException e) {
+            // only RuntimeException and Error are ever stored, see execute
+            if (e.getCause() instanceof Error error) throw error;
+            throw (RuntimeException) e.getCause();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.goalsapp.service;
+
+/**
+ * Cheap local estimate of how many model tokens a piece of text will use.
+ *
+ * <p>
+ * BPE tokenizers used by OpenAI models encode common English text at roughly four
+ * characters per token, attach a leading space to the following word, and give most
+ * punctuation and non-Latin characters a token of their own. The estimate follows
+ * those rules in a single pass without allocating: every run of Latin letters and
+ * digits counts one token per four characters (rounded up), every other visible
+ * character counts one token, and whitespace is free. It tends to overestimate
+ * slightly, which is the safe side for a budget.
+ * </p>
+ */
+final class TokenEstimator {
+
+    private TokenEstimator() {}
+
+    static int estimate(CharSequence text) {
+        int tokens = 0;
+        int word = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x250 && Character.isLetterOrDigit(c)) {
+                word++;
+                continue;
+            }
+            tokens += wordTokens(word);
+            word = 0;
+            // whitespace joins the next word; a surrogate pair is one character
+            if (!Character.isWhitespace(c) && !Character.isLowSurrogate(c)) {
+                tokens++;
+            }
+        }
+        return tokens + wordTokens(word);
+    }
+
+    private static int wordTokens(int length) {
+        return (length + 3) >> 2;
+    }
+}
@@ -2,9 +2,12 @@ package com.goalsapp.service;
 
 import com.goalsapp.entity.User;
 import com.goalsapp.repository.UserRepository;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.security.Principal;
+
 /**
  * Service responsible for user registration and user-related business logic.
  *
@@ -56,6 +59,26 @@ public class UserService {
         return userRepo.save(new User(username.trim(), encoder.encode(rawPassword)));
     }
 
+    /**
+     * The user making the current request.
+     *
+     * <p>
+     * A principal signed in through {@link AuthenticatedUser} already carries the
+     * user's id, so this returns a reference to the user without querying the
+     * database; the entity's fields are only loaded if something reads them. Any
+     * other principal is looked up by name.
+     * </p>
+     *
+     * @throws IllegalArgumentException if a principal without an id names no user
+     */
+    public User currentUser(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof AuthenticatedUser authenticated) {
+            return userRepo.getReferenceById(authenticated.getUserId());
+        }
+        return findByUsernameOrThrow(principal.getName());
+    }
+
     public User findByUsernameOrThrow(String username) {
         return userRepo.findByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("User not found."));
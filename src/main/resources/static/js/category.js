@@ -0,0 +1,161 @@
+// Scripts for the category page. Each part is optional: without it, the links and
+// forms on the page work as plain navigations and POST-redirect-GET.
+
+// Posts a form's fields (including its CSRF token) and resolves with the HTML
+// fragment of the response; rejects when the server answers with an error, with
+// the status on the error.
+function postFragment(form) {
+    return fetch(form.dataset.fragmentUrl, {
+        method: 'POST',
+        credentials: 'same-origin',
+        body: new URLSearchParams(new FormData(form))
+    }).then(function (r) {
+        if (!r.ok) {
+            var error = new Error(r.status);
+            error.status = r.status;
+            throw error;
+        }
+        return r.text().then(function (html) { return {html: html, response: r}; });
+    });
+}
+
+// Only a request that got no answer at all falls back to a plain submit. An error
+// answer would just come back again (and the server may already have acted), so it
+// is shown instead.
+function postFailed(form, error, show) {
+    if (error.status === undefined) form.submit(); // fall back to POST-redirect-GET
+    else show(error.status);
+}
+
+// Progressive enhancement: append the next page in place instead of navigating.
+document.getElementById('goal-items').addEventListener('click', function (e) {
+    var link = e.target.closest('.load-more a');
+    if (!link || !window.fetch) return;
+    e.preventDefault();
+    fetch(link.dataset.fragmentUrl, {credentials: 'same-origin'})
+        .then(function (r) { if (!r.ok) throw new Error(r.status); return r.text(); })
+        .then(function (html) {
+            var row = link.closest('.load-more');
+            row.insertAdjacentHTML('afterend', html);
+            row.remove();
+        })
+        .catch(function () { window.location = link.href; });
+});
+
+// Progressive enhancement: add an item in place. The response is just its <li>,
+// with the category's new count in a header.
+(function () {
+    var form = document.getElementById('add-form');
+    if (!form || !window.fetch) return;
+
+    var message = document.getElementById('add-error');
+
+    form.addEventListener('submit', function (e) {
+        e.preventDefault();
+        var button = form.querySelector('button');
+        button.disabled = true;
+        message.hidden = true;
+
+        postFragment(form)
+            .then(function (res) {
+                var empty = document.getElementById('no-items');
+                if (empty) empty.remove();
+                document.getElementById('goal-items').insertAdjacentHTML('afterbegin', res.html);
+
+                var count = res.response.headers.get('X-Item-Count');
+                if (count !== null) {
+                    document.getElementById('item-count').textContent = count + ' items';
+                    var tab = document.querySelector('.tab.active .count');
+                    if (tab) tab.textContent = count;
+                }
+                document.querySelector('#guidance-form button').disabled = false;
+                form.reset();
+                form.querySelector('input[name="text"]').focus();
+                button.disabled = false;
+            })
+            .catch(function (error) {
+                postFailed(form, error, function (status) {
+                    message.textContent = status === 400
+                        ? 'Write something first, then add it ✍️'
+                        : 'Couldn’t add that item 🥺 Please reload the page and try again.';
+                    message.hidden = false;
+                    button.disabled = false;
+                });
+            });
+    });
+})();
+
+// Poll a queued guidance job until its answer is ready.
+function pollJob() {
+    var card = document.getElementById('guidance-card');
+    var url = card.dataset.jobUrl;
+    if (!url || !window.fetch) return;
+    var text = document.getElementById('guidance-text');
+
+    (function poll() {
+        fetch(url, {credentials: 'same-origin', headers: {'Accept': 'application/json'}})
+            .then(function (r) { if (!r.ok) throw new Error(r.status); return r.json(); })
+            .then(function (job) {
+                if (job.status === 'SUCCEEDED' || job.status === 'FAILED') text.textContent = job.result;
+                else setTimeout(poll, 1500);
+            })
+            .catch(function () { setTimeout(poll, 5000); });
+    })();
+}
+pollJob();
+
+// Progressive enhancement: stream guidance over SSE; where that is unavailable,
+// queue a job and swap in just the guidance card instead of reloading the page.
+(function () {
+    var form = document.getElementById('guidance-form');
+    if (!form || !window.fetch) return;
+    var button = form.querySelector('button');
+
+    function queueJob() {
+        postFragment(form)
+            .then(function (res) {
+                document.getElementById('guidance-card').outerHTML = res.html;
+                button.disabled = false;
+                pollJob();
+            })
+            .catch(function (error) {
+                postFailed(form, error, function () {
+                    document.getElementById('guidance-card').hidden = false;
+                    document.getElementById('guidance-text').textContent =
+                        '⚠️ Couldn’t ask for your guidance. Please reload the page and try again 💗';
+                    button.disabled = false;
+                });
+            });
+    }
+
+    form.addEventListener('submit', function (e) {
+        e.preventDefault();
+        button.disabled = true;
+        if (!window.EventSource) {
+            queueJob();
+            return;
+        }
+
+        var card = document.getElementById('guidance-card');
+        var text = document.getElementById('guidance-text');
+        var received = false;
+
+        text.textContent = '';
+        card.hidden = false;
+
+        var source = new EventSource(form.dataset.streamUrl);
+        source.addEventListener('delta', function (ev) {
+            received = true;
+            text.textContent += JSON.parse(ev.data).text;
+        });
+        source.addEventListener('done', function () {
+            source.close();
+            button.disabled = false;
+        });
+        source.onerror = function () {
+            source.close();
+            if (received) button.disabled = false;
+            else queueJob();
+        };
+    });
+})();
@@ -0,0 +1,47 @@
+package com.goalsapp.aop;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TimedOperationAspectTest {
+
+    static class Worker {
+        @TimedOperation("test.work")
+        String work(boolean fail) {
+            if (fail) throw new IllegalStateException("boom");
+            return "done";
+        }
+
+        String untimed() {
+            return "plain";
+        }
+    }
+
+    @Test
+    void recordsAnnotatedCalls_taggedWithOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Worker worker = proxy(registry);
+
+        assertThat(worker.work(false)).isEqualTo("done");
+        assertThatThrownBy(() -> worker.work(true)).isInstanceOf(IllegalStateException.class);
+        assertThat(worker.untimed()).isEqualTo("plain");
+
+        Timer ok = registry.get("test.work")
+                .tags("class", "Worker", "method", "work", "exception", "none").timer();
+        Timer failed = registry.get("test.work").tag("exception", "IllegalStateException").timer();
+        assertThat(ok.count()).isEqualTo(1);
+        assertThat(failed.count()).isEqualTo(1);
+        assertThat(registry.getMeters()).hasSize(2);
+    }
+
+    private static Worker proxy(SimpleMeterRegistry registry) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Worker());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TimedOperationAspect(registry));
+        return factory.getProxy();
+    }
+}
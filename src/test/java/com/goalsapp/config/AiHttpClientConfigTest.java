@@ -0,0 +1,138 @@
+package com.goalsapp.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs the AI client against a local stub server.
+ */
+class AiHttpClientConfigTest {
+
+    final AiHttpClientConfig config = new AiHttpClientConfig();
+
+    HttpServer server;
+    HttpClient httpClient;
+    String baseUrl;
+
+    final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok", exchange -> {
+            record(exchange);
+            respond(exchange, "{\"ok\":true}".getBytes(StandardCharsets.UTF_8), null);
+        });
+        server.createContext("/slow", exchange -> {
+            record(exchange);
+            sleep(Duration.ofSeconds(2));
+            respond(exchange, "late".getBytes(StandardCharsets.UTF_8), null);
+        });
+        server.createContext("/gzip", exchange -> {
+            record(exchange);
+            respond(exchange, gzip("compressed guidance"), "gzip");
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        httpClient = config.aiHttpClient(HttpClient.Version.HTTP_2, Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void stopServer() {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void sequentialCalls_reuseOneConnection() {
+        RestClient client = config.aiRestClient(httpClient, Duration.ofSeconds(2), true);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(client.get().uri(baseUrl + "/ok").retrieve().body(String.class)).isEqualTo("{\"ok\":true}");
+        }
+
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void slowResponse_failsAfterReadTimeout() {
+        RestClient client = config.aiRestClient(httpClient, Duration.ofMillis(200), true);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.get().uri(baseUrl + "/slow").retrieve().body(String.class))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasCauseInstanceOf(HttpTimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void compression_requestsAndDecodesGzip() {
+        RestClient client = config.aiRestClient(httpClient, Duration.ofSeconds(2), true);
+
+        assertThat(client.get().uri(baseUrl + "/gzip").retrieve().body(String.class)).isEqualTo("compressed guidance");
+        assertThat(acceptEncodings).containsExactly("gzip");
+    }
+
+    @Test
+    void compression_canBeTurnedOff() {
+        RestClient client = config.aiRestClient(httpClient, Duration.ofSeconds(2), false);
+
+        client.get().uri(baseUrl + "/ok").retrieve().body(String.class);
+
+        assertThat(acceptEncodings).containsExactly((String) null);
+    }
+
+    private void record(HttpExchange exchange) {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body, String encoding) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (encoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.goalsapp.config;
+
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GoalItem;
+import com.goalsapp.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class GoalItemSequenceInitializerTest {
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Test
+    void alignSequence_restartsSequenceBehindStoredIds() {
+        User alice = em.persist(new User("alice", "hash"));
+        long lastId = 0;
+        for (int i = 0; i < 3; i++) {
+            lastId = em.persist(new GoalItem(alice, Category.TODO, "item " + i)).getId();
+        }
+        em.flush();
+        // as in a database whose ids came from the old identity column
+        jdbc.execute("alter sequence goal_items_seq restart with 1");
+
+        new GoalItemSequenceInitializer(entityManagerFactory, jdbc).alignSequence();
+
+        assertThat(baseValue() - GoalItem.ID_ALLOCATION_SIZE).isGreaterThanOrEqualTo(lastId);
+    }
+
+    @Test
+    void alignSequence_leavesSequenceAlone_whenAlreadyAhead() {
+        jdbc.execute("alter sequence goal_items_seq restart with 1000");
+
+        new GoalItemSequenceInitializer(entityManagerFactory, jdbc).alignSequence();
+
+        assertThat(baseValue()).isEqualTo(1000);
+    }
+
+    private long baseValue() {
+        return jdbc.queryForObject(
+                "select base_value from information_schema.sequences where sequence_name = 'GOAL_ITEMS_SEQ'",
+                Long.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.goalsapp.config;
+
+import com.goalsapp.controller.HomeController;
+import com.goalsapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs with the security filter chain and the resource URL encoding filter, as a browser sees the app.
+ */
+@WebMvcTest(HomeController.class)
+@Import(SecurityConfig.class)
+class StaticResourceConfigTest {
+
+    private static final Pattern STYLESHEET = Pattern.compile("/css/home-[0-9a-f]{32}\\.css");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockitoBean
+    UserRepository userRepo;
+
+    @Test
+    void pages_linkFingerprintedAssets_servedAsImmutable() throws Exception {
+        String html = mockMvc.perform(get("/"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Matcher link = STYLESHEET.matcher(html);
+        assertThat(link.find()).as("fingerprinted stylesheet link in %s", html).isTrue();
+
+        mockMvc.perform(get(link.group()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/css"))
+                .andExpect(content().string(containsString(".hero")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.PRAGMA));
+    }
+
+    @Test
+    void assets_arePublic_evenWithoutFingerprint_butRevalidatedThere() throws Exception {
+        mockMvc.perform(get("/js/category.js"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("EventSource")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void unknownAsset_isNotFound() throws Exception {
+        mockMvc.perform(get("/css/home-0123456789abcdef0123456789abcdef.css"))
+                .andExpect(status().isNotFound());
+    }
+}
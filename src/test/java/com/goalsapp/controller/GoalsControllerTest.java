@@ -1,27 +1,57 @@
 package com.goalsapp.controller;
 
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.dto.GuidanceJobView;
+import com.goalsapp.dto.GuidanceRecordView;
 import com.goalsapp.entity.Category;
 import com.goalsapp.entity.GoalItem;
+import com.goalsapp.entity.GuidanceJob;
 import com.goalsapp.entity.User;
+import com.goalsapp.service.GoalCountService;
+import com.goalsapp.service.GoalCursor;
+import com.goalsapp.service.GoalItemsChangedEvent;
+import com.goalsapp.service.GoalListVersions;
+import com.goalsapp.service.GoalPage;
 import com.goalsapp.service.GoalService;
+import com.goalsapp.service.GuidanceHistoryPage;
+import com.goalsapp.service.GuidanceHistoryService;
+import com.goalsapp.service.GuidanceJobService;
 import com.goalsapp.service.GuidanceService;
 import com.goalsapp.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.security.Principal;
+import java.time.Instant;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(GoalsController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import(GoalListVersions.class)
 class GoalsControllerTest {
 
     @Autowired
@@ -30,39 +60,192 @@ class GoalsControllerTest {
     @MockitoBean
     GoalService goalService;
 
+    @MockitoBean
+    GoalCountService countService;
+
     @MockitoBean
     GuidanceService guidanceService;
 
+    @MockitoBean
+    GuidanceHistoryService historyService;
+
+    @MockitoBean
+    GuidanceJobService jobService;
+
     @MockitoBean
     UserService userService;
 
+    @Autowired
+    GoalListVersions listVersions;
+
+    private static User alice() {
+        User alice = new User("alice", "hash");
+        ReflectionTestUtils.setField(alice, "id", 1L);
+        return alice;
+    }
+
     private static Principal principal(String name) {
         return () -> name;
     }
 
+    private static Map<Category, Long> counts(long longTerm, long shortTerm, long todo, long wish) {
+        Map<Category, Long> counts = new EnumMap<>(Category.class);
+        counts.put(Category.LONG_TERM, longTerm);
+        counts.put(Category.SHORT_TERM, shortTerm);
+        counts.put(Category.TODO, todo);
+        counts.put(Category.WISH, wish);
+        return counts;
+    }
+
     @Test
     void categoryPage_rendersCategoryView_withItems() throws Exception {
-        User user = new User("alice", "hash");
-        when(userService.findByUsernameOrThrow("alice")).thenReturn(user);
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
 
-        List<GoalItem> items = List.of(new GoalItem(user, Category.TODO, "task"));
-        when(goalService.list(user, Category.TODO)).thenReturn(items);
+        List<GoalItemView> items = List.of(new GoalItemView(1L, "task", Instant.now()));
+        when(goalService.page(user, Category.TODO, null, 50)).thenReturn(new GoalPage(items, null));
+        when(countService.counts(user)).thenReturn(counts(0, 0, 1, 0));
 
         mockMvc.perform(get("/goals/TODO").principal(principal("alice")))
                 .andExpect(status().isOk())
                 .andExpect(view().name("category"))
                 .andExpect(model().attribute("category", Category.TODO))
-                .andExpect(model().attribute("items", items));
+                .andExpect(model().attribute("items", items))
+                .andExpect(model().attribute("itemCount", 1L))
+                .andExpect(model().attribute("nextCursor", (Object) null))
+                .andExpect(content().string(containsString("<span class=\"count\">1</span>")));
 
-        verify(userService).findByUsernameOrThrow("alice");
-        verify(goalService).list(user, Category.TODO);
+        verify(userService).currentUser(any());
+        verify(goalService).page(user, Category.TODO, null, 50);
         verifyNoInteractions(guidanceService);
     }
 
+    @Test
+    void categoryPage_unchangedLists_answer304WithoutQueryingOrRendering() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(goalService.page(user, Category.TODO, null, 50)).thenReturn(new GoalPage(List.of(), null));
+        when(countService.counts(user)).thenReturn(counts(0, 0, 0, 0));
+
+        MvcResult first = mockMvc.perform(get("/goals/TODO").principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"");
+        clearInvocations(goalService, countService);
+
+        mockMvc.perform(get("/goals/TODO").principal(principal("alice")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        verifyNoInteractions(goalService, countService);
+
+        // a change to any of the user's lists alters the page (nav counts), so the tag no longer matches
+        listVersions.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.WISH, 1));
+        mockMvc.perform(get("/goals/TODO").principal(principal("alice")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+        verify(goalService).page(user, Category.TODO, null, 50);
+    }
+
+    @Test
+    void categoryPage_withJob_isNotRevalidated() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(goalService.page(user, Category.TODO, null, 50)).thenReturn(new GoalPage(List.of(), null));
+        when(countService.counts(user)).thenReturn(counts(0, 0, 0, 0));
+
+        mockMvc.perform(get("/goals/TODO").param("job", "7").principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void categoryPage_linksNextPage_andSeeksWithCursor() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+
+        GoalCursor after = new GoalCursor(Instant.parse("2025-01-02T00:00:00Z"), 7L);
+        GoalCursor next = new GoalCursor(Instant.parse("2025-01-01T00:00:00Z"), 3L);
+        List<GoalItemView> items = List.of(new GoalItemView(1L, "older task", Instant.now()));
+        when(goalService.page(user, Category.TODO, after, 50)).thenReturn(new GoalPage(items, next));
+
+        mockMvc.perform(get("/goals/TODO").param("after", after.encode()).principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("items", items))
+                .andExpect(model().attribute("nextCursor", next.encode()))
+                .andExpect(content().string(containsString("after=" + next.encode())));
+    }
+
+    @Test
+    void categoryPage_rejectsMalformedCursor() throws Exception {
+        when(userService.currentUser(any())).thenReturn(alice());
+
+        mockMvc.perform(get("/goals/TODO").param("after", "garbage").principal(principal("alice")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void itemsFragment_rendersOnlyListItems() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+
+        GoalCursor after = new GoalCursor(Instant.parse("2025-01-02T00:00:00Z"), 7L);
+        List<GoalItemView> items = List.of(new GoalItemView(1L, "older task", Instant.now()));
+        when(goalService.page(user, Category.TODO, after, 50)).thenReturn(new GoalPage(items, null));
+
+        mockMvc.perform(get("/goals/TODO/items").param("after", after.encode()).principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("<li>older task</li>")))
+                .andExpect(content().string(not(containsString("<html"))))
+                .andExpect(content().string(not(containsString("Load more"))));
+
+        verifyNoInteractions(countService);
+    }
+
+    @Test
+    void dashboard_showsEveryCategoryWithItsCount() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(countService.counts(user)).thenReturn(counts(3, 0, 5, 1));
+
+        mockMvc.perform(get("/goals").principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(view().name("dashboard"))
+                .andExpect(model().attribute("totalCount", 9L))
+                .andExpect(content().string(containsString("Wish list")))
+                .andExpect(content().string(containsString("<div class=\"count\">5</div>")));
+
+        verifyNoInteractions(goalService);
+    }
+
+    @Test
+    void fullPlan_rendersOverview_withGuidancePerCategory() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(countService.counts(user)).thenReturn(counts(0, 0, 2, 1));
+        Map<Category, String> plan = new EnumMap<>(Category.class);
+        plan.put(Category.TODO, "Do the dishes first");
+        plan.put(Category.WISH, "Save for the bike");
+        when(guidanceService.getFullPlan(user)).thenReturn(plan);
+
+        mockMvc.perform(post("/goals/guidance").principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(view().name("dashboard"))
+                .andExpect(model().attribute("plan", plan))
+                .andExpect(model().attribute("totalCount", 3L))
+                .andExpect(content().string(containsString("Do the dishes first")))
+                .andExpect(content().string(containsString("Save for the bike")));
+
+        verify(guidanceService, never()).getGuidance(any(), any());
+    }
+
     @Test
     void addItem_redirectsBackToCategory() throws Exception {
-        User user = new User("alice", "hash");
-        when(userService.findByUsernameOrThrow("alice")).thenReturn(user);
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
 
         mockMvc.perform(post("/goals/SHORT_TERM/add")
                         .principal(principal("alice"))
@@ -74,22 +257,216 @@ class GoalsControllerTest {
     }
 
     @Test
-    void guidanceOnSamePage_rendersCategoryView_withGuidance() throws Exception {
-        User user = new User("alice", "hash");
-        when(userService.findByUsernameOrThrow("alice")).thenReturn(user);
+    void addItemFragment_rendersOnlyTheNewRow_andTheNewCount() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        GoalItem saved = new GoalItem(user, Category.TODO, "hello");
+        ReflectionTestUtils.setField(saved, "id", 42L);
+        when(goalService.add(user, Category.TODO, "hello")).thenReturn(saved);
+        when(countService.count(user, Category.TODO)).thenReturn(3L);
 
-        List<GoalItem> items = List.of(new GoalItem(user, Category.LONG_TERM, "big goal"));
-        when(goalService.list(user, Category.LONG_TERM)).thenReturn(items);
-        when(guidanceService.getGuidance(user, Category.LONG_TERM)).thenReturn("guidance text");
+        mockMvc.perform(post("/goals/TODO/items")
+                        .principal(principal("alice"))
+                        .param("text", "hello"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Item-Count", "3"))
+                .andExpect(content().string(containsString("<li>hello</li>")))
+                .andExpect(content().string(not(containsString("<html"))))
+                .andExpect(content().string(not(containsString("Load more"))));
+
+        verify(goalService).add(user, Category.TODO, "hello");
+        verify(goalService, never()).page(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void addItemFragment_rejectsBlankText() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(goalService.add(user, Category.TODO, " ")).thenThrow(new IllegalArgumentException("Text cannot be empty."));
+
+        mockMvc.perform(post("/goals/TODO/items")
+                        .principal(principal("alice"))
+                        .param("text", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addItems_addsPastedLinesAndUploadedFile() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "todos.txt", "text/plain", "from file 1\nfrom file 2\n".getBytes());
+
+        mockMvc.perform(multipart("/goals/TODO/bulk")
+                        .file(file)
+                        .param("texts", "pasted 1\r\npasted 2")
+                        .principal(principal("alice")))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/goals/TODO"));
+
+        verify(goalService).addAll(user, Category.TODO,
+                List.of("pasted 1", "pasted 2", "from file 1", "from file 2"));
+    }
+
+    @Test
+    void addItems_rejectsEmptyImport() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(goalService.addAll(user, Category.TODO, List.of("", "  ")))
+                .thenThrow(new IllegalArgumentException("Text cannot be empty."));
+
+        mockMvc.perform(multipart("/goals/TODO/bulk")
+                        .param("texts", "\n  ")
+                        .principal(principal("alice")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addItems_rejectsTooManyLines() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(goalService.addAll(eq(user), eq(Category.TODO), anyList()))
+                .thenThrow(new IllegalArgumentException("At most 1000 items can be added at once."));
+
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "todos.txt", "text/plain", "item\n".repeat(1001).getBytes());
+
+        mockMvc.perform(multipart("/goals/TODO/bulk")
+                        .file(file)
+                        .principal(principal("alice")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void guidanceOnSamePage_queuesJob_andRedirectsToIt() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(jobService.enqueue(user, Category.LONG_TERM)).thenReturn(job(7L, GuidanceJob.Status.QUEUED, null));
 
         mockMvc.perform(post("/goals/LONG_TERM/guidance").principal(principal("alice")))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/goals/LONG_TERM?job=7"));
+
+        verify(jobService).enqueue(user, Category.LONG_TERM);
+        verifyNoInteractions(guidanceService);
+    }
+
+    @Test
+    void guidanceCard_queuesJob_andRendersOnlyTheCard() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(jobService.enqueue(user, Category.LONG_TERM)).thenReturn(job(7L, GuidanceJob.Status.QUEUED, null));
+
+        mockMvc.perform(post("/goals/LONG_TERM/guidance/card").principal(principal("alice")))
                 .andExpect(status().isOk())
-                .andExpect(view().name("category"))
-                .andExpect(model().attribute("category", Category.LONG_TERM))
-                .andExpect(model().attribute("items", items))
-                .andExpect(model().attribute("guidance", "guidance text"));
+                .andExpect(content().string(containsString("id=\"guidance-card\"")))
+                .andExpect(content().string(containsString("data-job-url=\"/goals/guidance/jobs/7\"")))
+                .andExpect(content().string(containsString("Working on your guidance")))
+                .andExpect(content().string(not(containsString("<html"))))
+                .andExpect(content().string(not(containsString("goal-items"))));
+
+        verifyNoInteractions(goalService, countService, guidanceService);
+    }
 
-        verify(goalService).list(user, Category.LONG_TERM);
-        verify(guidanceService).getGuidance(user, Category.LONG_TERM);
+    @Test
+    void categoryPage_withPendingJob_rendersPollingPlaceholder() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(goalService.page(user, Category.LONG_TERM, null, 50)).thenReturn(new GoalPage(List.of(), null));
+        when(jobService.find(user, 7L)).thenReturn(Optional.of(job(7L, GuidanceJob.Status.RUNNING, null)));
+
+        mockMvc.perform(get("/goals/LONG_TERM").param("job", "7").principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeDoesNotExist("guidance"))
+                .andExpect(content().string(containsString("data-job-url=\"/goals/guidance/jobs/7\"")))
+                .andExpect(content().string(containsString("Working on your guidance")))
+                .andExpect(content().string(containsString("http-equiv=\"refresh\"")));
+    }
+
+    @Test
+    void categoryPage_withFinishedJob_showsItsResult() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(goalService.page(user, Category.LONG_TERM, null, 50)).thenReturn(new GoalPage(List.of(), null));
+        when(jobService.find(user, 7L)).thenReturn(Optional.of(job(7L, GuidanceJob.Status.SUCCEEDED, "guidance text")));
+
+        mockMvc.perform(get("/goals/LONG_TERM").param("job", "7").principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("guidance", "guidance text"))
+                .andExpect(content().string(not(containsString("data-job-url"))))
+                .andExpect(content().string(not(containsString("http-equiv=\"refresh\""))));
+    }
+
+    @Test
+    void guidanceJob_returnsStatusAsJson() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(jobService.find(user, 7L)).thenReturn(Optional.of(job(7L, GuidanceJob.Status.FAILED, "try again")));
+
+        mockMvc.perform(get("/goals/guidance/jobs/7").principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.status").value("FAILED"))
+                .andExpect(jsonPath("$.result").value("try again"));
+    }
+
+    @Test
+    void guidanceJob_ofAnotherUser_isNotFound() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(jobService.find(user, 8L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/goals/guidance/jobs/8").principal(principal("alice")))
+                .andExpect(status().isNotFound());
+    }
+
+    private static GuidanceJobView job(Long id, GuidanceJob.Status status, String result) {
+        return new GuidanceJobView(id, Category.LONG_TERM, status, 1, result, Instant.now(),
+                status.finished() ? Instant.now() : null);
+    }
+
+    @Test
+    void guidanceStream_sendsDeltaEvents_thenDone() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+        when(guidanceService.streamGuidance(eq(user), eq(Category.TODO), any())).thenAnswer(inv -> {
+            Consumer<String> onDelta = inv.getArgument(2);
+            onDelta.accept("Hello ");
+            onDelta.accept("there");
+            return "Hello there";
+        });
+
+        MvcResult result = mockMvc.perform(get("/goals/TODO/guidance/stream").principal(principal("alice")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5_000);
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body).containsSubsequence(
+                "event:delta", "{\"text\":\"Hello \"}",
+                "event:delta", "{\"text\":\"there\"}",
+                "event:done");
+        verifyNoInteractions(goalService);
+    }
+
+    @Test
+    void history_rendersStoredGuidance_andLinksOlderPage() throws Exception {
+        User user = alice();
+        when(userService.currentUser(any())).thenReturn(user);
+
+        GuidanceRecordView record = new GuidanceRecordView(
+                4L, "gpt-4.1-mini", 120, 340, "Start with the smallest task", Instant.parse("2025-03-01T09:30:00Z"));
+        GoalCursor next = new GoalCursor(record.createdAt(), record.id());
+        when(historyService.page(user, Category.TODO, null, 10)).thenReturn(new GuidanceHistoryPage(List.of(record), next));
+
+        mockMvc.perform(get("/goals/TODO/history").principal(principal("alice")))
+                .andExpect(status().isOk())
+                .andExpect(view().name("history"))
+                .andExpect(content().string(containsString("Start with the smallest task")))
+                .andExpect(content().string(containsString("gpt-4.1-mini • 120 / 340 tokens")))
+                .andExpect(content().string(containsString("after=" + next.encode())));
+
+        verifyNoInteractions(guidanceService);
     }
-}
\ No newline at end of file
+}
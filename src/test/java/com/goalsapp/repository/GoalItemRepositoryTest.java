@@ -0,0 +1,120 @@
+package com.goalsapp.repository;
+
+import com.goalsapp.dto.CategoryCount;
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GoalItem;
+import com.goalsapp.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class GoalItemRepositoryTest {
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    GoalItemRepository goalRepo;
+
+    User alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = em.persist(new User("alice", "hash"));
+        User bob = em.persist(new User("bob", "hash"));
+
+        // two items share a timestamp, so ordering must fall back to the id
+        persist(alice, Category.TODO, "oldest", "2025-01-01T00:00:00Z");
+        persist(alice, Category.TODO, "tie 1", "2025-01-02T00:00:00Z");
+        persist(alice, Category.TODO, "tie 2", "2025-01-02T00:00:00Z");
+        persist(alice, Category.TODO, "newest", "2025-01-03T00:00:00Z");
+        persist(alice, Category.WISH, "other category", "2025-01-04T00:00:00Z");
+        persist(bob, Category.TODO, "other user", "2025-01-04T00:00:00Z");
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findViews_returnsWholeListNewestFirst() {
+        List<GoalItemView> views = goalRepo.findViews(alice.getId(), Category.TODO);
+
+        assertThat(views).extracting(GoalItemView::text).containsExactly("newest", "tie 2", "tie 1", "oldest");
+    }
+
+    @Test
+    void findViews_returnsSameDataAsEntityQuery() {
+        List<GoalItem> entities = goalRepo.findByUserAndCategoryOrderByCreatedAtDesc(alice, Category.WISH);
+        List<GoalItemView> views = goalRepo.findViews(alice.getId(), Category.WISH);
+
+        assertThat(views).containsExactly(new GoalItemView(
+                entities.get(0).getId(), entities.get(0).getText(), entities.get(0).getCreatedAt()));
+    }
+
+    @Test
+    void keysetPages_walkWholeListWithoutGapsOrDuplicates() {
+        List<GoalItemView> first = goalRepo.findFirstPage(alice.getId(), Category.TODO, Limit.of(2));
+        GoalItemView last = first.get(1);
+        List<GoalItemView> second = goalRepo.findPageAfter(
+                alice.getId(), Category.TODO, last.createdAt(), last.id(), Limit.of(2));
+        last = second.get(1);
+        List<GoalItemView> third = goalRepo.findPageAfter(
+                alice.getId(), Category.TODO, last.createdAt(), last.id(), Limit.of(2));
+
+        assertThat(first).extracting(GoalItemView::text).containsExactly("newest", "tie 2");
+        assertThat(second).extracting(GoalItemView::text).containsExactly("tie 1", "oldest");
+        assertThat(third).isEmpty();
+    }
+
+    @Test
+    void countByCategory_groupsOneUsersItems_inOneStatement() {
+        Statistics stats = em.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        List<CategoryCount> counts = goalRepo.countByCategory(alice.getId());
+
+        assertThat(counts).containsExactlyInAnyOrder(
+                new CategoryCount(Category.TODO, 4),
+                new CategoryCount(Category.WISH, 1));
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saveAll_sendsInsertsInJdbcBatches_withPooledIds() {
+        Statistics stats = em.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        List<GoalItem> items = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            items.add(new GoalItem(alice, Category.SHORT_TERM, "bulk " + i));
+        }
+        stats.clear();
+
+        goalRepo.saveAll(items);
+        em.flush();
+
+        assertThat(stats.getEntityInsertCount()).isEqualTo(120);
+        // 3 sequence calls (50 ids each) + 3 batched inserts, instead of 120+ statements
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertThat(items).extracting(GoalItem::getId).doesNotHaveDuplicates().doesNotContainNull();
+    }
+
+    private void persist(User user, Category category, String text, String createdAt) {
+        GoalItem item = new GoalItem(user, category, text);
+        ReflectionTestUtils.setField(item, "createdAt", Instant.parse(createdAt));
+        em.persist(item);
+    }
+}
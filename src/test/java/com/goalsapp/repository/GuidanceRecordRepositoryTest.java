@@ -0,0 +1,94 @@
+package com.goalsapp.repository;
+
+import com.goalsapp.dto.GuidanceRecordView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GuidanceRecord;
+import com.goalsapp.entity.ResponseChain;
+import com.goalsapp.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+class GuidanceRecordRepositoryTest {
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    GuidanceRecordRepository recordRepo;
+
+    User alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = em.persist(new User("alice", "hash"));
+        User bob = em.persist(new User("bob", "hash"));
+
+        persist(alice, Category.TODO, "h1", "first answer", "2025-01-01T00:00:00Z");
+        persist(alice, Category.TODO, "h2", "tie 1", "2025-01-02T00:00:00Z");
+        persist(alice, Category.TODO, "h1", "tie 2", "2025-01-02T00:00:00Z");
+        persist(alice, Category.WISH, "h3", "other category", "2025-01-03T00:00:00Z");
+        persist(bob, Category.TODO, "h1", "other user", "2025-01-04T00:00:00Z");
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findTexts_matchesUserAndHash_newestFirst() {
+        assertThat(recordRepo.findTexts(alice.getId(), "h1", Limit.of(5))).containsExactly("tie 2", "first answer");
+        assertThat(recordRepo.findTexts(alice.getId(), "h3", Limit.of(1))).containsExactly("other category");
+        assertThat(recordRepo.findTexts(alice.getId(), "unknown", Limit.of(1))).isEmpty();
+    }
+
+    @Test
+    void findLatestTexts_returnsNewestOfCategory() {
+        assertThat(recordRepo.findLatestTexts(alice.getId(), Category.TODO, Limit.of(1))).containsExactly("tie 2");
+    }
+
+    @Test
+    void findLatestChains_returnsChainOfNewestAnswer_orNullWithoutOne() {
+        assertThat(recordRepo.findLatestChains(alice.getId(), Category.TODO, Limit.of(1))).containsExactly((ResponseChain) null);
+
+        GuidanceRecord chained = new GuidanceRecord(alice, Category.TODO, "h4", "gpt-4.1-mini", 100, 200, "continued",
+                new ResponseChain("resp_1", "basis", 7, 3, 1, Instant.parse("2025-01-05T00:00:00Z")));
+        ReflectionTestUtils.setField(chained, "createdAt", Instant.parse("2025-01-05T00:00:00Z"));
+        em.persistAndFlush(chained);
+        em.clear();
+
+        ResponseChain chain = recordRepo.findLatestChains(alice.getId(), Category.TODO, Limit.of(1)).get(0);
+        assertThat(chain.getResponseId()).isEqualTo("resp_1");
+        assertThat(chain.getLastItemId()).isEqualTo(7);
+        assertThat(chain.getItemCount()).isEqualTo(3);
+        assertThat(chain.getLength()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetPages_walkHistoryWithoutGapsOrDuplicates() {
+        List<GuidanceRecordView> first = recordRepo.findFirstPage(alice.getId(), Category.TODO, Limit.of(2));
+        GuidanceRecordView last = first.get(1);
+        List<GuidanceRecordView> second = recordRepo.findPageAfter(
+                alice.getId(), Category.TODO, last.createdAt(), last.id(), Limit.of(2));
+
+        assertThat(first).extracting(GuidanceRecordView::text).containsExactly("tie 2", "tie 1");
+        assertThat(second).extracting(GuidanceRecordView::text).containsExactly("first answer");
+        assertThat(first.get(0).model()).isEqualTo("gpt-4.1-mini");
+        assertThat(first.get(0).inputTokens()).isEqualTo(100);
+        assertThat(first.get(0).outputTokens()).isEqualTo(200);
+    }
+
+    private void persist(User user, Category category, String hash, String text, String createdAt) {
+        GuidanceRecord record = new GuidanceRecord(user, category, hash, "gpt-4.1-mini", 100, 200, text, null);
+        ReflectionTestUtils.setField(record, "createdAt", Instant.parse(createdAt));
+        em.persist(record);
+    }
+}
@@ -0,0 +1,96 @@
+package com.goalsapp.repository;
+
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GoalItem;
+import com.goalsapp.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs without a surrounding test transaction: cached query results are only used
+ * once the writes they depend on have committed, as in production.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    GoalItemRepository goalRepo;
+
+    @Autowired
+    UserRepository userRepo;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    User alice;
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepo.save(new User("alice", "hash"));
+        goalRepo.saveAll(List.of(
+                new GoalItem(alice, Category.TODO, "first"),
+                new GoalItem(alice, Category.TODO, "second")));
+        emf.getCache().evictAll();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        goalRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void repeatedListing_isAnsweredFromQueryCacheWithoutSql() {
+        List<GoalItemView> first = goalRepo.findViews(alice.getId(), Category.TODO);
+        long statements = statistics.getPrepareStatementCount();
+
+        List<GoalItemView> again = goalRepo.findViews(alice.getId(), Category.TODO);
+        List<GoalItemView> page = goalRepo.findFirstPage(alice.getId(), Category.TODO, Limit.of(1));
+        List<GoalItemView> pageAgain = goalRepo.findFirstPage(alice.getId(), Category.TODO, Limit.of(1));
+
+        assertThat(again).isEqualTo(first).hasSize(2);
+        assertThat(pageAgain).isEqualTo(page).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements + 1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void addingAnItem_invalidatesCachedListing() {
+        goalRepo.findViews(alice.getId(), Category.TODO);
+
+        goalRepo.save(new GoalItem(alice, Category.TODO, "third"));
+
+        assertThat(goalRepo.findViews(alice.getId(), Category.TODO))
+                .extracting(GoalItemView::text).contains("third").hasSize(3);
+    }
+
+    @Test
+    void loadedUser_isReadAgainFromSecondLevelCacheWithoutSql() {
+        userRepo.findByUsername("alice");
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(userRepo.findByUsername("alice")).hasValueSatisfying(u -> assertThat(u.getId()).isEqualTo(alice.getId()));
+        assertThat(userRepo.findById(alice.getId())).isPresent();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+}
@@ -0,0 +1,126 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.CategoryCount;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.GoalItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GoalCountServiceTest {
+
+    @Mock
+    GoalItemRepository goalRepo;
+
+    GuidanceCacheTest.MutableClock clock;
+    GoalCountService service;
+    User alice;
+
+    @BeforeEach
+    void setUp() {
+        clock = new GuidanceCacheTest.MutableClock();
+        service = new GoalCountService(goalRepo, Duration.ofMinutes(10), 2, clock);
+        alice = new User("alice", "hash");
+        ReflectionTestUtils.setField(alice, "id", 1L);
+    }
+
+    @Test
+    void counts_fillsEmptyCategoriesWithZero() {
+        when(goalRepo.countByCategory(1L)).thenReturn(List.of(new CategoryCount(Category.TODO, 4)));
+
+        assertThat(service.counts(alice)).containsExactly(
+                entry(Category.LONG_TERM, 0L),
+                entry(Category.SHORT_TERM, 0L),
+                entry(Category.TODO, 4L),
+                entry(Category.WISH, 0L));
+    }
+
+    @Test
+    void counts_queriesOnce_andFollowsEvents() {
+        when(goalRepo.countByCategory(1L)).thenReturn(List.of(new CategoryCount(Category.TODO, 4)));
+        service.counts(alice);
+
+        service.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 1));
+        service.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.WISH, 3));
+        service.onGoalItemsChanged(new GoalItemsChangedEvent(2L, Category.TODO, 1));
+
+        assertThat(service.count(alice, Category.TODO)).isEqualTo(5);
+        assertThat(service.count(alice, Category.WISH)).isEqualTo(3);
+        verify(goalRepo, times(1)).countByCategory(1L);
+    }
+
+    @Test
+    void counts_reloadsAfterTtl() {
+        when(goalRepo.countByCategory(1L))
+                .thenReturn(List.of(new CategoryCount(Category.TODO, 4)))
+                .thenReturn(List.of(new CategoryCount(Category.TODO, 7)));
+        service.count(alice, Category.TODO);
+
+        clock.now = clock.now.plus(Duration.ofMinutes(9));
+        assertThat(service.count(alice, Category.TODO)).isEqualTo(4);
+
+        clock.now = clock.now.plus(Duration.ofMinutes(1));
+        assertThat(service.count(alice, Category.TODO)).isEqualTo(7);
+        verify(goalRepo, times(2)).countByCategory(1L);
+    }
+
+    @Test
+    void goalItemsChanged_ignoresUsersNotYetLoaded() {
+        service.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 1));
+
+        verifyNoInteractions(goalRepo);
+    }
+
+    @Test
+    void counts_keepOnlyTheMostRecentlyUsedUsers() {
+        when(goalRepo.countByCategory(anyLong())).thenReturn(List.of());
+        service.counts(alice);
+        service.counts(user(2L));
+        service.counts(alice);
+        service.counts(user(3L));
+
+        assertThat(service.size()).isEqualTo(2);
+        service.counts(alice);
+        service.counts(user(2L));
+        verify(goalRepo, times(1)).countByCategory(1L);
+        verify(goalRepo, times(2)).countByCategory(2L);
+    }
+
+    @Test
+    void load_doesNotBlockOtherUsers_whileOneQueryIsSlow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(goalRepo.countByCategory(1L)).thenAnswer(inv -> {
+            SingleFlightTest.awaitLatch(release);
+            return List.of(new CategoryCount(Category.TODO, 4));
+        });
+        when(goalRepo.countByCategory(2L)).thenReturn(List.of(new CategoryCount(Category.WISH, 1)));
+
+        CompletableFuture<Long> slow = CompletableFuture.supplyAsync(() -> service.count(alice, Category.TODO));
+        await().untilAsserted(() -> verify(goalRepo).countByCategory(1L));
+
+        assertThat(service.count(user(2L), Category.WISH)).isEqualTo(1);
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo(4);
+    }
+
+    private static User user(Long id) {
+        User user = new User("user" + id, "hash");
+        ReflectionTestUtils.setField(user, "id", id);
+        return user;
+    }
+}
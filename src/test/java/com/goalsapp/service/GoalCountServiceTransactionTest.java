@@ -0,0 +1,72 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.GoalItemRepository;
+import com.goalsapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs without a surrounding test transaction, so that adds commit or roll back as in production.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({GoalService.class, GoalCountService.class, GuidanceCache.class})
+class GoalCountServiceTransactionTest {
+
+    @Autowired
+    GoalService goalService;
+
+    @Autowired
+    GoalCountService countService;
+
+    @Autowired
+    GuidanceCache guidanceCache;
+
+    @Autowired
+    UserRepository userRepo;
+
+    @Autowired
+    GoalItemRepository goalRepo;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        goalRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void rolledBackImport_leavesCountsAndCacheAlone_committedAddUpdatesThem() {
+        User alice = userRepo.save(new User("alice", "hash"));
+        assertThat(countService.count(alice, Category.TODO)).isZero();
+        guidanceCache.put(alice.getId(), Category.TODO, "key", "guidance");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            goalService.addAll(alice, Category.TODO, List.of("a", "b"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(countService.count(alice, Category.TODO)).isZero();
+        assertThat(guidanceCache.peek("key")).contains("guidance");
+
+        goalService.add(alice, Category.TODO, "c");
+
+        assertThat(countService.count(alice, Category.TODO)).isEqualTo(1);
+        assertThat(guidanceCache.peek("key")).isEmpty();
+    }
+}
@@ -0,0 +1,33 @@
+package com.goalsapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GoalCursorTest {
+
+    @Test
+    void encode_roundTrips() {
+        GoalCursor cursor = new GoalCursor(Instant.parse("2025-03-04T05:06:07.123456Z"), 42L);
+
+        String token = cursor.encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(GoalCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_returnsNull_forMissingToken() {
+        assertThat(GoalCursor.decode(null)).isNull();
+        assertThat(GoalCursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void decode_rejectsMalformedToken() {
+        assertThatThrownBy(() -> GoalCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid page cursor");
+    }
+}
@@ -0,0 +1,40 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GoalListVersionsTest {
+
+    @Test
+    void changes_bumpOnlyTheirUsersCategory_andTheModificationTime() {
+        GuidanceCacheTest.MutableClock clock = new GuidanceCacheTest.MutableClock();
+        clock.now = Instant.parse("2025-01-01T00:00:00.250Z");
+        GoalListVersions versions = new GoalListVersions(clock);
+        GoalListVersions.Stamp initial = versions.stamp(1L);
+
+        clock.now = Instant.parse("2025-01-01T00:05:00.750Z");
+        versions.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 3));
+        GoalListVersions.Stamp changed = versions.stamp(1L);
+
+        assertThat(initial.lastModified()).isEqualTo(Instant.parse("2025-01-01T00:00:00Z"));
+        assertThat(changed.version(Category.TODO)).isEqualTo(1);
+        assertThat(changed.version(Category.WISH)).isZero();
+        assertThat(changed.lastModified()).isEqualTo(Instant.parse("2025-01-01T00:05:00Z"));
+        assertThat(changed.tag()).isNotEqualTo(initial.tag());
+        assertThat(versions.stamp(2L).tag()).isEqualTo(initial.tag());
+    }
+
+    @Test
+    void stampsFromBeforeARestart_neverMatch() {
+        GuidanceCacheTest.MutableClock clock = new GuidanceCacheTest.MutableClock();
+        clock.now = Instant.parse("2025-01-01T00:00:00Z");
+        String before = new GoalListVersions(clock).stamp(1L).tag();
+
+        clock.now = Instant.parse("2025-01-02T00:00:00Z");
+        assertThat(new GoalListVersions(clock).stamp(1L).tag()).isNotEqualTo(before);
+    }
+}
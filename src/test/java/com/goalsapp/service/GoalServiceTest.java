@@ -1,5 +1,6 @@
 package com.goalsapp.service;
 
+import com.goalsapp.dto.GoalItemView;
 import com.goalsapp.entity.Category;
 import com.goalsapp.entity.GoalItem;
 import com.goalsapp.entity.User;
@@ -10,7 +11,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -22,25 +27,69 @@ class GoalServiceTest {
     @Mock
     GoalItemRepository goalRepo;
 
+    @Mock
+    ApplicationEventPublisher events;
+
     @InjectMocks
     GoalService goalService;
 
     @Test
-    void list_delegatesToRepository() {
-        User user = new User("alice", "hash");
+    void list_delegatesToProjectionQuery() {
+        User user = user(5L);
         Category category = Category.TODO;
 
-        GoalItem item = new GoalItem(user, category, "x");
-        when(goalRepo.findByUserAndCategoryOrderByCreatedAtDesc(user, category))
-                .thenReturn(List.of(item));
+        GoalItemView item = view(1L, "x");
+        when(goalRepo.findViews(5L, category)).thenReturn(List.of(item));
 
-        List<GoalItem> result = goalService.list(user, category);
+        List<GoalItemView> result = goalService.list(user, category);
 
         assertThat(result).containsExactly(item);
-        verify(goalRepo).findByUserAndCategoryOrderByCreatedAtDesc(user, category);
+        verify(goalRepo).findViews(5L, category);
         verifyNoMoreInteractions(goalRepo);
     }
 
+    @Test
+    void page_returnsFirstPage_withoutCursor_whenNoMoreRows() {
+        User user = user(5L);
+        GoalItemView a = view(2L, "a");
+        GoalItemView b = view(1L, "b");
+        when(goalRepo.findFirstPage(5L, Category.TODO, Limit.of(3))).thenReturn(List.of(a, b));
+
+        GoalPage page = goalService.page(user, Category.TODO, null, 2);
+
+        assertThat(page.items()).containsExactly(a, b);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void page_returnsCursorOfLastItem_whenMoreRowsExist() {
+        User user = user(5L);
+        GoalItemView a = view(3L, "a");
+        GoalItemView b = view(2L, "b");
+        GoalItemView c = view(1L, "c");
+        when(goalRepo.findFirstPage(5L, Category.TODO, Limit.of(3))).thenReturn(List.of(a, b, c));
+
+        GoalPage page = goalService.page(user, Category.TODO, null, 2);
+
+        assertThat(page.items()).containsExactly(a, b);
+        assertThat(page.next()).isEqualTo(new GoalCursor(b.createdAt(), 2L));
+    }
+
+    @Test
+    void page_seeksPastCursor() {
+        User user = user(5L);
+        GoalCursor cursor = new GoalCursor(Instant.parse("2025-01-01T00:00:00Z"), 10L);
+        GoalItemView older = view(9L, "older");
+        when(goalRepo.findPageAfter(5L, Category.WISH, cursor.createdAt(), 10L, Limit.of(6)))
+                .thenReturn(List.of(older));
+
+        GoalPage page = goalService.page(user, Category.WISH, cursor, 5);
+
+        assertThat(page.items()).containsExactly(older);
+        assertThat(page.hasNext()).isFalse();
+        verify(goalRepo, never()).findFirstPage(any(), any(), any());
+    }
+
     @Test
     void add_trimsText_andSavesGoalItem() {
         User user = new User("alice", "hash");
@@ -61,6 +110,8 @@ class GoalServiceTest {
 
         // method return is whatever repository saved returned
         assertThat(saved.getText()).isEqualTo("learn spring");
+
+        verify(events).publishEvent(new GoalItemsChangedEvent(user.getId(), category, 1));
     }
 
     @Test
@@ -75,6 +126,52 @@ class GoalServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Text cannot be empty");
 
-        verifyNoInteractions(goalRepo);
+        verifyNoInteractions(goalRepo, events);
+    }
+
+    @Test
+    void addAll_trimsSkipsBlanks_savesOnce_andPublishesOneEvent() {
+        User user = user(5L);
+        when(goalRepo.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<GoalItem> saved = goalService.addAll(user, Category.TODO, List.of(" a ", "", "   ", "b"));
+
+        assertThat(saved).extracting(GoalItem::getText).containsExactly("a", "b");
+        assertThat(saved).allSatisfy(i -> {
+            assertThat(i.getUser()).isSameAs(user);
+            assertThat(i.getCategory()).isEqualTo(Category.TODO);
+        });
+        verify(goalRepo).saveAll(anyList());
+        verify(events).publishEvent(new GoalItemsChangedEvent(5L, Category.TODO, 2));
+    }
+
+    @Test
+    void addAll_throwsWhenNothingToAdd() {
+        assertThatThrownBy(() -> goalService.addAll(user(5L), Category.TODO, List.of(" ", "")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Text cannot be empty");
+
+        verifyNoInteractions(goalRepo, events);
+    }
+
+    @Test
+    void addAll_throwsWhenOverLimit() {
+        ReflectionTestUtils.setField(goalService, "maxBulkItems", 2);
+
+        assertThatThrownBy(() -> goalService.addAll(user(5L), Category.TODO, List.of("a", "b", "c")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("At most 2 items");
+
+        verifyNoInteractions(goalRepo, events);
+    }
+
+    private static User user(Long id) {
+        User user = new User("alice", "hash");
+        ReflectionTestUtils.setField(user, "id", id);
+        return user;
+    }
+
+    private static GoalItemView view(Long id, String text) {
+        return new GoalItemView(id, text, Instant.parse("2025-01-01T00:00:00Z").plusSeconds(id));
     }
-}
\ No newline at end of file
+}
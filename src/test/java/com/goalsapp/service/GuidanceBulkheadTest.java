@@ -0,0 +1,178 @@
+package com.goalsapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+
+class GuidanceBulkheadTest {
+
+    GuidanceBulkhead bulkhead;
+
+    @AfterEach
+    void tearDown() {
+        if (bulkhead != null) bulkhead.shutdown();
+    }
+
+    @Test
+    void execute_runsCallOnVirtualThread() {
+        bulkhead = new GuidanceBulkhead(1, 0, Duration.ofMillis(10));
+
+        boolean virtual = bulkhead.execute(() -> Thread.currentThread().isVirtual());
+
+        assertThat(virtual).isTrue();
+        assertThat(bulkhead.inFlight()).isZero();
+    }
+
+    @Test
+    void execute_rethrowsCallFailure_andReleasesSlot() {
+        bulkhead = new GuidanceBulkhead(1, 0, Duration.ofMillis(10));
+
+        assertThatThrownBy(() -> bulkhead.execute(() -> { throw new IllegalStateException("boom"); }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+        assertThat(bulkhead.execute(() -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void execute_interruptsCall_afterTotalTimeout() {
+        bulkhead = new GuidanceBulkhead(1, 0, Duration.ofMillis(10));
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> bulkhead.execute(() -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        }, Duration.ofMillis(100)))
+                .isInstanceOf(GuidanceTimeoutException.class);
+
+        await().until(() -> interrupted.getCount() == 0);
+        await().until(() -> bulkhead.inFlight() == 0);
+        assertThat(bulkhead.execute(() -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void execute_callIgnoringTimeout_keepsItsSlotUntilItReturns() {
+        bulkhead = new GuidanceBulkhead(1, 0, Duration.ofMillis(10));
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> bulkhead.execute(() -> {
+            // like a blocking socket read, which an interrupt does not end
+            while (!awaitUninterruptibly(release)) { }
+            return "late";
+        }, Duration.ofMillis(50)))
+                .isInstanceOf(GuidanceTimeoutException.class);
+
+        assertThat(bulkhead.inFlight()).isEqualTo(1);
+        assertThatThrownBy(() -> bulkhead.execute(() -> "second"))
+                .isInstanceOf(BulkheadFullException.class);
+
+        release.countDown();
+        await().until(() -> bulkhead.inFlight() == 0);
+        assertThat(bulkhead.execute(() -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void execute_rejectsImmediately_whenSlotsAndQueueAreFull() throws Exception {
+        bulkhead = new GuidanceBulkhead(1, 1, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> bulkhead.execute(() -> {
+            awaitLatch(release);
+            return "first";
+        }));
+        await().until(() -> bulkhead.inFlight() == 1);
+
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> bulkhead.execute(() -> "second"));
+        await().until(() -> bulkhead.queueDepth() == 1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> bulkhead.execute(() -> "third"))
+                .isInstanceOf(BulkheadFullException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(bulkhead.rejectedCount()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+        assertThat(bulkhead.queueDepth()).isZero();
+    }
+
+    @Test
+    void execute_rejectsQueuedCaller_afterMaxWait() {
+        bulkhead = new GuidanceBulkhead(1, 1, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture.supplyAsync(() -> bulkhead.execute(() -> awaitLatch(release)));
+        await().until(() -> bulkhead.inFlight() == 1);
+
+        assertThatThrownBy(() -> bulkhead.execute(() -> "late"))
+                .isInstanceOf(BulkheadFullException.class)
+                .hasMessageContaining("Timed out");
+        release.countDown();
+    }
+
+    @Test
+    void execute_interruptedCaller_isCancelled_notRejected() throws Exception {
+        bulkhead = new GuidanceBulkhead(1, 1, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture.supplyAsync(() -> bulkhead.execute(() -> awaitLatch(release)));
+        await().until(() -> bulkhead.inFlight() == 1);
+
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        Thread waiting = Thread.ofVirtual().start(() -> {
+            try {
+                bulkhead.execute(() -> "never");
+            } catch (RuntimeException e) {
+                failure.complete(Thread.currentThread().isInterrupted() ? e : new AssertionError("flag cleared"));
+            }
+        });
+        await().until(() -> bulkhead.queueDepth() == 1);
+        waiting.interrupt();
+
+        assertThat(failure.get(5, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+        assertThat(bulkhead.rejectedCount()).isZero();
+        assertThat(bulkhead.queueDepth()).isZero();
+        release.countDown();
+    }
+
+    @Test
+    void bindTo_publishesGaugesAndRejections() {
+        bulkhead = new GuidanceBulkhead(1, 0, Duration.ofMillis(10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkhead.bindTo(registry);
+
+        assertThat(registry.get("guidance.bulkhead.in_flight").gauge().value()).isZero();
+        assertThat(registry.get("guidance.bulkhead.queue_depth").gauge().value()).isZero();
+        assertThat(registry.get("guidance.bulkhead.rejected").functionCounter().count()).isZero();
+    }
+
+    private static boolean awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static boolean awaitLatch(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
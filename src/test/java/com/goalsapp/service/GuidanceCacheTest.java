@@ -0,0 +1,136 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GuidanceCacheTest {
+
+    /** Clock that only moves when the test says so. */
+    static class MutableClock extends Clock {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        @Override public ZoneOffset getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(java.time.ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    @Test
+    void key_changesWithEveryInput() {
+        String base = GuidanceCache.key("sys", "m", Category.TODO, "- a");
+
+        assertThat(GuidanceCache.key("sys", "m", Category.TODO, "- a")).isEqualTo(base);
+        assertThat(GuidanceCache.key("sys2", "m", Category.TODO, "- a")).isNotEqualTo(base);
+        assertThat(GuidanceCache.key("sys", "m2", Category.TODO, "- a")).isNotEqualTo(base);
+        assertThat(GuidanceCache.key("sys", "m", Category.WISH, "- a")).isNotEqualTo(base);
+        assertThat(GuidanceCache.key("sys", "m", Category.TODO, "- b")).isNotEqualTo(base);
+    }
+
+    @Test
+    void get_countsHitsAndMisses() {
+        GuidanceCache cache = new GuidanceCache(10, Duration.ofMinutes(1));
+
+        assertThat(cache.get("k")).isEmpty();
+        cache.put(1L, Category.TODO, "k", "guidance");
+        assertThat(cache.get("k")).contains("guidance");
+
+        assertThat(cache.stats()).isEqualTo(new GuidanceCache.Stats(1, 1, 0, 0, 1));
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsed_whenFull() {
+        GuidanceCache cache = new GuidanceCache(2, Duration.ofMinutes(1));
+        cache.put(1L, Category.TODO, "a", "A");
+        cache.put(1L, Category.WISH, "b", "B");
+        cache.get("a"); // "b" is now the least recently used
+
+        cache.put(2L, Category.TODO, "c", "C");
+
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("a")).contains("A");
+        assertThat(cache.get("c")).contains("C");
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void get_expiresEntriesAfterTtl() {
+        MutableClock clock = new MutableClock();
+        GuidanceCache cache = new GuidanceCache(10, Duration.ofMinutes(5), clock);
+        cache.put(1L, Category.TODO, "k", "guidance");
+
+        clock.now = clock.now.plus(Duration.ofMinutes(4));
+        assertThat(cache.get("k")).contains("guidance");
+
+        clock.now = clock.now.plus(Duration.ofMinutes(1));
+        assertThat(cache.get("k")).isEmpty();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void goalItemsChanged_dropsOnlyThatUsersCategory() {
+        GuidanceCache cache = new GuidanceCache(10, Duration.ofMinutes(1));
+        cache.put(1L, Category.TODO, "a", "A");
+        cache.put(1L, Category.WISH, "b", "B");
+        cache.put(2L, Category.TODO, "c", "C");
+
+        cache.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 1));
+
+        assertThat(cache.get("a")).isEmpty();
+        assertThat(cache.get("b")).contains("B");
+        assertThat(cache.get("c")).contains("C");
+        assertThat(cache.stats().invalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void lastKnown_survivesInvalidation() {
+        GuidanceCache cache = new GuidanceCache(10, Duration.ofMinutes(1));
+        cache.put(1L, Category.TODO, "a", "old plan");
+        cache.put(1L, Category.TODO, "b", "new plan");
+
+        cache.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 1));
+
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.lastKnown(1L, Category.TODO)).contains("new plan");
+        assertThat(cache.lastKnown(1L, Category.WISH)).isEmpty();
+    }
+
+    @Test
+    void precomputedEntry_countsOnlyItsFirstHit() {
+        GuidanceCache cache = new GuidanceCache(10, Duration.ofMinutes(1));
+        cache.put(1L, Category.TODO, "k", "guidance");
+
+        assertThat(cache.markPrecomputed("k")).isTrue();
+        assertThat(cache.markPrecomputed("missing")).isFalse();
+        assertThat(cache.peek("k")).contains("guidance");
+        assertThat(cache.precomputedHits()).isZero();
+
+        cache.get("k");
+        cache.get("k");
+        assertThat(cache.precomputedHits()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(2);
+    }
+
+    @Test
+    void bindTo_publishesCounters() {
+        GuidanceCache cache = new GuidanceCache(10, Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("missing");
+        cache.put(1L, Category.TODO, "k", "guidance");
+        cache.get("k");
+
+        assertThat(registry.get("guidance.cache.hits").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("guidance.cache.misses").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("guidance.cache.size").gauge().value()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,111 @@
+package com.goalsapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.goalsapp.service.GuidanceCircuitBreaker.State.*;
+import static org.assertj.core.api.Assertions.*;
+
+class GuidanceCircuitBreakerTest {
+
+    final GuidanceCacheTest.MutableClock clock = new GuidanceCacheTest.MutableClock();
+    final GuidanceCircuitBreaker breaker = new GuidanceCircuitBreaker(3, Duration.ofSeconds(30), clock);
+
+    @Test
+    void opensAfterConsecutiveFailures_andShortCircuits() {
+        fail(2);
+        assertThat(breaker.state()).isEqualTo(CLOSED);
+
+        fail(1);
+        assertThat(breaker.state()).isEqualTo(OPEN);
+        assertThat(breaker.tryAcquire()).isEmpty();
+        assertThat(breaker.shortCircuitedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        fail(2);
+        breaker.onSuccess(breaker.tryAcquire().orElseThrow());
+        fail(2);
+
+        assertThat(breaker.state()).isEqualTo(CLOSED);
+    }
+
+    @Test
+    void halfOpen_letsOneProbeThrough_andClosesOnSuccess() {
+        fail(3);
+        clock.now = clock.now.plus(Duration.ofSeconds(30));
+
+        GuidanceCircuitBreaker.Permit probe = breaker.tryAcquire().orElseThrow();
+        assertThat(breaker.state()).isEqualTo(HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isEmpty();
+
+        breaker.onSuccess(probe);
+        assertThat(breaker.state()).isEqualTo(CLOSED);
+        assertThat(breaker.tryAcquire()).isPresent();
+    }
+
+    @Test
+    void halfOpen_reopensOnFailedProbe() {
+        fail(3);
+        clock.now = clock.now.plus(Duration.ofSeconds(30));
+
+        breaker.onFailure(breaker.tryAcquire().orElseThrow());
+
+        assertThat(breaker.state()).isEqualTo(OPEN);
+        clock.now = clock.now.plus(Duration.ofSeconds(29));
+        assertThat(breaker.tryAcquire()).isEmpty();
+    }
+
+    @Test
+    void lateOutcomes_ofCallsStartedBeforeOpening_areIgnored() {
+        GuidanceCircuitBreaker.Permit slow = breaker.tryAcquire().orElseThrow();
+        GuidanceCircuitBreaker.Permit slower = breaker.tryAcquire().orElseThrow();
+        fail(3);
+
+        breaker.onSuccess(slow);
+        assertThat(breaker.state()).isEqualTo(OPEN);
+        assertThat(breaker.tryAcquire()).isEmpty();
+
+        clock.now = clock.now.plus(Duration.ofSeconds(30));
+        GuidanceCircuitBreaker.Permit probe = breaker.tryAcquire().orElseThrow();
+        breaker.onSuccess(slower);
+        assertThat(breaker.state()).isEqualTo(HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isEmpty();
+
+        breaker.onSuccess(probe);
+        assertThat(breaker.state()).isEqualTo(CLOSED);
+    }
+
+    @Test
+    void release_freesTheProbeWithoutClosing() {
+        fail(3);
+        clock.now = clock.now.plus(Duration.ofSeconds(30));
+
+        breaker.release(breaker.tryAcquire().orElseThrow());
+
+        assertThat(breaker.state()).isEqualTo(HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isPresent();
+    }
+
+    @Test
+    void bindTo_publishesState() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        breaker.bindTo(registry);
+
+        fail(3);
+        breaker.tryAcquire();
+
+        assertThat(registry.get("guidance.breaker.state").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("guidance.breaker.opened").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("guidance.breaker.short_circuited").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure(breaker.tryAcquire().orElseThrow());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.goalsapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GuidanceClientTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    GuidanceClient client = new GuidanceClient(new GuidanceBulkhead(2, 2, Duration.ofSeconds(1)),
+            new GuidanceCircuitBreaker(3, Duration.ofSeconds(30)), new GuidanceRateLimiter(600, 50),
+            new GuidanceMetrics(registry), null, new PromptBuilder(1500, 1500, 1500, 1500, 200),
+            RestClient.create(), "SYSTEM");
+
+    @Test
+    void extractText_parsesResponsesApiShape_andRecordsUsage() throws Exception {
+        String text = client.extractText(body("""
+                {"output":[{"type":"message","content":[{"type":"output_text","text":"Hello from OpenAI"}]}],
+                 "usage":{"input_tokens":12,"output_tokens":5,"total_tokens":17}}
+                """));
+
+        assertThat(text).isEqualTo("Hello from OpenAI");
+        assertThat(registry.get("guidance.tokens").tag("type", "input").counter().count()).isEqualTo(12.0);
+        assertThat(registry.get("guidance.tokens").tag("type", "output").counter().count()).isEqualTo(5.0);
+    }
+
+    @Test
+    void extractText_returnsFallback_whenShapeUnexpected() throws Exception {
+        assertThat(client.extractText(body("{\"x\":1}"))).isEqualTo("Could not parse OpenAI response.");
+        assertThat(client.extractText(body("not json"))).isEqualTo("Could not parse OpenAI response.");
+        assertThat(client.extractText(body(""))).isEqualTo("No response from OpenAI.");
+    }
+
+    @Test
+    void readStream_forwardsDeltas_andKeepsUsageAndResponseId() throws Exception {
+        List<String> deltas = new ArrayList<>();
+
+        ResponsesApiParser.Result result = client.readStream(body("""
+                event: response.output_text.delta
+                data: {"type":"response.output_text.delta","delta":"Plan "}
+
+                data: not json
+
+                event: response.output_text.delta
+                data: {"type":"response.output_text.delta","delta":"it"}
+
+                event: response.completed
+                data: {"type":"response.completed","response":{"id":"resp_1","usage":{"input_tokens":12,"output_tokens":2}}}
+
+                data: [DONE]
+                """), deltas::add);
+
+        assertThat(deltas).containsExactly("Plan ", "it");
+        assertThat(result).isEqualTo(new ResponsesApiParser.Result("Plan it", 12, 2, "resp_1"));
+        assertThat(registry.get("guidance.tokens").tag("type", "input").counter().count()).isEqualTo(12.0);
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
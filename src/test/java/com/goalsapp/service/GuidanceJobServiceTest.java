@@ -0,0 +1,263 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GuidanceJobView;
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GuidanceJob;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.GuidanceJobRepository;
+import com.goalsapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs against the database without a surrounding test transaction, so that every
+ * claim commits on its own as it does in production.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(GuidanceJobServiceTest.Config.class)
+@RecordApplicationEvents
+class GuidanceJobServiceTest {
+
+    static final GuidanceCacheTest.MutableClock CLOCK = new GuidanceCacheTest.MutableClock();
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        GuidanceJobService guidanceJobService(GuidanceJobRepository jobRepo, ApplicationEventPublisher events) {
+            return new GuidanceJobService(jobRepo, events, 3, Duration.ofSeconds(10), Duration.ofSeconds(15),
+                    Duration.ofMinutes(5), CLOCK);
+        }
+    }
+
+    @Autowired
+    GuidanceJobService jobService;
+
+    @Autowired
+    GuidanceJobRepository jobRepo;
+
+    @Autowired
+    UserRepository userRepo;
+
+    @Autowired
+    ApplicationEvents events;
+
+    User alice;
+    User bob;
+
+    @BeforeEach
+    void setUp() {
+        CLOCK.now = Instant.parse("2025-01-01T00:00:00Z");
+        alice = userRepo.save(new User("alice", "hash"));
+        bob = userRepo.save(new User("bob", "hash"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void enqueue_joinsWaitingJobOfSameCategory() {
+        GuidanceJobView first = jobService.enqueue(alice, Category.TODO);
+        GuidanceJobView again = jobService.enqueue(alice, Category.TODO);
+        GuidanceJobView other = jobService.enqueue(alice, Category.WISH);
+
+        assertThat(again.id()).isEqualTo(first.id());
+        assertThat(other.id()).isNotEqualTo(first.id());
+        assertThat(first.status()).isEqualTo(GuidanceJob.Status.QUEUED);
+        assertThat(events.stream(GuidanceJobQueuedEvent.class)).hasSize(2);
+    }
+
+    @Test
+    void enqueue_whileJobRuns_queuesANewOne() {
+        GuidanceJobView first = jobService.enqueue(alice, Category.TODO);
+        jobService.claimNext();
+
+        assertThat(jobService.enqueue(alice, Category.TODO).id()).isNotEqualTo(first.id());
+    }
+
+    @Test
+    void find_onlyReturnsOwnJobs() {
+        GuidanceJobView job = jobService.enqueue(alice, Category.TODO);
+
+        assertThat(jobService.find(alice, job.id())).isPresent();
+        assertThat(jobService.find(bob, job.id())).isEmpty();
+    }
+
+    @Test
+    void claimNext_takesOldestJobWithItsUser_andCountsTheAttempt() {
+        GuidanceJobView first = jobService.enqueue(alice, Category.TODO);
+        CLOCK.now = CLOCK.now.plusSeconds(1);
+        jobService.enqueue(bob, Category.TODO);
+
+        GuidanceJob claimed = jobService.claimNext().orElseThrow();
+
+        assertThat(claimed.getId()).isEqualTo(first.id());
+        assertThat(claimed.getUser().getUsername()).isEqualTo("alice");
+        assertThat(claimed.getStatus()).isEqualTo(GuidanceJob.Status.RUNNING);
+        assertThat(claimed.getAttempts()).isEqualTo(1);
+        assertThat(jobService.claimNext().orElseThrow().getUser().getUsername()).isEqualTo("bob");
+        assertThat(jobService.claimNext()).isEmpty();
+    }
+
+    @Test
+    void complete_storesResult() {
+        GuidanceJobView job = jobService.enqueue(alice, Category.TODO);
+        jobService.claimNext();
+
+        assertThat(jobService.complete(job.id(), 1, "guidance")).isTrue();
+
+        GuidanceJobView done = jobService.find(alice, job.id()).orElseThrow();
+        assertThat(done.status()).isEqualTo(GuidanceJob.Status.SUCCEEDED);
+        assertThat(done.result()).isEqualTo("guidance");
+        assertThat(done.finishedAt()).isEqualTo(CLOCK.now);
+    }
+
+    @Test
+    void concurrentWorkers_claimEveryJobExactlyOnce() throws Exception {
+        List<Long> queued = IntStream.range(0, 40)
+                .mapToObj(i -> jobRepo.save(new GuidanceJob(i % 2 == 0 ? alice : bob, Category.TODO, CLOCK.now)))
+                .map(GuidanceJob::getId)
+                .toList();
+
+        List<Long> claimed = Collections.synchronizedList(new ArrayList<>());
+        Callable<Void> worker = () -> {
+            Optional<GuidanceJob> job;
+            while ((job = jobService.claimNext()).isPresent()) {
+                claimed.add(job.get().getId());
+            }
+            return null;
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Void>> done = pool.invokeAll(Collections.nCopies(6, worker));
+            for (Future<Void> f : done) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(claimed).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(queued);
+        assertThat(jobRepo.findAll()).allSatisfy(job -> assertThat(job.getAttempts()).isEqualTo(1));
+    }
+
+    @Test
+    void retryableFailure_isRetriedWithDoublingBackoff_untilAttemptsRunOut() {
+        GuidanceJobView job = jobService.enqueue(alice, Category.TODO);
+
+        jobService.claimNext();
+        assertThat(jobService.fail(job.id(), 1, true, () -> "unused")).isTrue();
+        assertThat(jobService.find(alice, job.id()).orElseThrow().status()).isEqualTo(GuidanceJob.Status.QUEUED);
+
+        CLOCK.now = CLOCK.now.plusSeconds(9);
+        assertThat(jobService.claimNext()).isEmpty();
+        CLOCK.now = CLOCK.now.plusSeconds(1);
+        assertThat(jobService.claimNext()).isPresent();
+        assertThat(jobService.fail(job.id(), 2, true, () -> "unused")).isTrue();
+
+        // 20s would be next, but the cap is 15s
+        CLOCK.now = CLOCK.now.plusSeconds(14);
+        assertThat(jobService.claimNext()).isEmpty();
+        CLOCK.now = CLOCK.now.plusSeconds(1);
+        assertThat(jobService.claimNext().orElseThrow().getAttempts()).isEqualTo(3);
+        assertThat(jobService.fail(job.id(), 3, true, () -> "gave up")).isFalse();
+
+        GuidanceJobView failed = jobService.find(alice, job.id()).orElseThrow();
+        assertThat(failed.status()).isEqualTo(GuidanceJob.Status.FAILED);
+        assertThat(failed.result()).isEqualTo("gave up");
+    }
+
+    @Test
+    void permanentFailure_failsAtOnce() {
+        GuidanceJobView job = jobService.enqueue(alice, Category.TODO);
+        jobService.claimNext();
+
+        assertThat(jobService.fail(job.id(), 1, false, () -> "bad request")).isFalse();
+
+        assertThat(jobService.find(alice, job.id()).orElseThrow().status()).isEqualTo(GuidanceJob.Status.FAILED);
+    }
+
+    @Test
+    void expiredLease_letsAnotherWorkerClaimTheJob() {
+        GuidanceJobView job = jobService.enqueue(alice, Category.TODO);
+        jobService.claimNext();
+
+        CLOCK.now = CLOCK.now.plus(Duration.ofMinutes(5));
+        assertThat(jobService.claimNext()).isEmpty();
+
+        CLOCK.now = CLOCK.now.plusSeconds(1);
+        GuidanceJob reclaimed = jobService.claimNext().orElseThrow();
+        assertThat(reclaimed.getId()).isEqualTo(job.id());
+        assertThat(reclaimed.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredLease_afterTheLastAttempt_failsTheJob() {
+        GuidanceJobView job = jobService.enqueue(alice, Category.TODO);
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            assertThat(jobService.claimNext().orElseThrow().getAttempts()).isEqualTo(attempt);
+            CLOCK.now = CLOCK.now.plus(Duration.ofMinutes(5)).plusSeconds(1);
+        }
+
+        assertThat(jobService.claimNext()).isEmpty();
+
+        GuidanceJobView failed = jobService.find(alice, job.id()).orElseThrow();
+        assertThat(failed.status()).isEqualTo(GuidanceJob.Status.FAILED);
+        assertThat(failed.result()).isEqualTo(GuidanceJobService.ABANDONED);
+        assertThat(failed.finishedAt()).isEqualTo(CLOCK.now);
+        assertThat(jobRepo.findById(job.id()).orElseThrow().getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void staleWorker_cannotOverwriteTheAttemptThatReclaimedItsJob() {
+        GuidanceJobView job = jobService.enqueue(alice, Category.TODO);
+        int stale = jobService.claimNext().orElseThrow().getAttempts();
+        CLOCK.now = CLOCK.now.plus(Duration.ofMinutes(5)).plusSeconds(1);
+        int current = jobService.claimNext().orElseThrow().getAttempts();
+
+        assertThat(jobService.complete(job.id(), stale, "stale")).isFalse();
+        assertThat(jobService.fail(job.id(), stale, true, () -> "unused")).isFalse();
+        assertThat(jobService.find(alice, job.id()).orElseThrow().status()).isEqualTo(GuidanceJob.Status.RUNNING);
+
+        assertThat(jobService.complete(job.id(), current, "fresh")).isTrue();
+        assertThat(jobService.find(alice, job.id()).orElseThrow().result()).isEqualTo("fresh");
+    }
+
+    @Test
+    void outcomeOfFinishedJob_isNotOverwritten() {
+        GuidanceJobView job = jobService.enqueue(alice, Category.TODO);
+        jobService.claimNext();
+        jobService.complete(job.id(), 1, "first");
+
+        assertThat(jobService.complete(job.id(), 1, "second")).isFalse();
+        assertThat(jobService.fail(job.id(), 1, false, () -> "failed")).isFalse();
+
+        assertThat(jobService.find(alice, job.id()).orElseThrow().result()).isEqualTo("first");
+    }
+}
@@ -0,0 +1,110 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.GuidanceJob;
+import com.goalsapp.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GuidanceJobWorkerTest {
+
+    @Mock
+    GuidanceJobService jobService;
+
+    @Mock
+    GuidanceService guidanceService;
+
+    @Captor
+    ArgumentCaptor<Supplier<String>> message;
+
+    final User alice = new User("alice", "hash");
+
+    private GuidanceJob job(long id) {
+        GuidanceJob job = new GuidanceJob(alice, Category.TODO, Instant.now());
+        ReflectionTestUtils.setField(job, "id", id);
+        ReflectionTestUtils.setField(job, "attempts", 1);
+        return job;
+    }
+
+    private GuidanceJobWorker worker() {
+        return new GuidanceJobWorker(jobService, guidanceService, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void run_storesGeneratedGuidance() {
+        when(guidanceService.generate(alice, Category.TODO)).thenReturn("guidance");
+
+        worker().run(job(1));
+
+        verify(jobService).complete(1L, 1, "guidance");
+        verify(jobService, never()).fail(any(), anyInt(), anyBoolean(), any());
+    }
+
+    @Test
+    void run_reportsRetryableFailure_withTheMessageThePageWouldShow() {
+        GuidanceTimeoutException timeout = new GuidanceTimeoutException("slow");
+        when(guidanceService.generate(alice, Category.TODO)).thenThrow(timeout);
+        when(guidanceService.failureMessage(alice, Category.TODO, timeout)).thenReturn("too slow");
+
+        worker().run(job(1));
+
+        verify(jobService).fail(eq(1L), eq(1), eq(true), message.capture());
+        assertThat(message.getValue().get()).isEqualTo("too slow");
+        verify(jobService, never()).complete(any(), anyInt(), any());
+    }
+
+    @Test
+    void run_failsPermanently_onClientError_andOnUnexpectedErrors() {
+        when(guidanceService.generate(alice, Category.TODO))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null))
+                .thenThrow(new IllegalStateException("bug"));
+        when(guidanceService.failureMessage(eq(alice), eq(Category.TODO), any(IllegalStateException.class)))
+                .thenThrow(new IllegalStateException("bug"));
+
+        GuidanceJobWorker worker = worker();
+        worker.run(job(1));
+        worker.run(job(2));
+
+        verify(jobService).fail(eq(1L), eq(1), eq(false), any());
+        verify(jobService).fail(eq(2L), eq(1), eq(false), message.capture());
+        assertThat(message.getValue().get()).isEqualTo(GuidanceJobWorker.FAILED);
+    }
+
+    @Test
+    void workers_drainQueuedJobs_untilStopped() {
+        when(jobService.claimNext()).thenReturn(Optional.of(job(1)))
+                .thenReturn(Optional.of(job(2)))
+                .thenReturn(Optional.empty());
+        when(guidanceService.generate(alice, Category.TODO)).thenReturn("guidance");
+
+        GuidanceJobWorker worker = worker();
+        worker.start();
+        try {
+            verify(jobService, timeout(2000)).complete(1L, 1, "guidance");
+            verify(jobService, timeout(2000)).complete(2L, 1, "guidance");
+        } finally {
+            worker.stop();
+        }
+        assertThat(worker.isRunning()).isFalse();
+    }
+}
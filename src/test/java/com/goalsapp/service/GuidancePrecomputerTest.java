@@ -0,0 +1,215 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GuidancePrecomputerTest {
+
+    @Mock
+    GuidanceService guidanceService;
+
+    @Mock
+    GuidanceHistoryService history;
+
+    @Mock
+    UserRepository userRepo;
+
+    GuidanceCache cache = new GuidanceCache(10, Duration.ofMinutes(5));
+
+    GuidanceBulkhead bulkhead = new GuidanceBulkhead(2, 0, Duration.ZERO);
+
+    GuidanceRateLimiter limiter = new GuidanceRateLimiter(60, 4, new GuidanceCacheTest.MutableClock());
+
+    GuidancePrecomputer precomputer;
+
+    final User alice = new User("alice", "hash");
+
+    @AfterEach
+    void tearDown() {
+        if (precomputer != null) precomputer.shutdown();
+        bulkhead.shutdown();
+    }
+
+    private GuidancePrecomputer precomputer(boolean enabled) {
+        return precomputer(enabled, 100, 0);
+    }
+
+    private GuidancePrecomputer precomputer(boolean enabled, int maxQueue, double reserve) {
+        ReflectionTestUtils.setField(alice, "id", 1L);
+        precomputer = new GuidancePrecomputer(guidanceService, history, cache, userRepo, bulkhead, limiter,
+                enabled, Duration.ofMillis(200), 1, maxQueue, reserve);
+        return precomputer;
+    }
+
+    @Test
+    void burstOfEdits_isPrecomputedOnceAfterTheQuietPeriod() {
+        GuidancePrecomputer precomputer = precomputer(true);
+        when(guidanceService.usesAi()).thenReturn(true);
+        when(history.hasAny(1L)).thenReturn(true);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(alice));
+        when(guidanceService.precompute(alice, Category.TODO)).thenReturn(true);
+
+        for (int i = 0; i < 5; i++) {
+            precomputer.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 1));
+        }
+        precomputer.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.WISH, 1));
+
+        verify(guidanceService, after(600).times(1)).precompute(alice, Category.TODO);
+        verify(guidanceService, times(1)).precompute(alice, Category.WISH);
+        assertThat(precomputer.precomputedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void usersWhoNeverAskedForGuidance_areSkipped() {
+        GuidancePrecomputer precomputer = precomputer(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        precomputer.bindTo(registry);
+        when(guidanceService.usesAi()).thenReturn(true);
+        when(history.hasAny(1L)).thenReturn(false);
+
+        precomputer.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 1));
+
+        await().untilAsserted(() -> assertThat(registry.get("guidance.precompute.runs")
+                .tag("outcome", "skipped").functionCounter().count()).isEqualTo(1.0));
+        verify(guidanceService, never()).precompute(any(), any());
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void nothingIsScheduled_whenDisabledOrInStubMode() {
+        precomputer(false).onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 1));
+        precomputer.shutdown();
+
+        GuidancePrecomputer stub = precomputer(true);
+        when(guidanceService.usesAi()).thenReturn(false);
+        stub.onGoalItemsChanged(new GoalItemsChangedEvent(1L, Category.TODO, 1));
+
+        verify(guidanceService, after(400).never()).precompute(any(), any());
+        verifyNoInteractions(history);
+    }
+
+    @Test
+    void hitRate_relatesServedPrecomputedAnswersToRuns() {
+        GuidancePrecomputer precomputer = precomputer(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        precomputer.bindTo(registry);
+        when(history.hasAny(1L)).thenReturn(true);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(alice));
+        when(guidanceService.precompute(alice, Category.TODO)).thenAnswer(inv -> {
+            cache.put(1L, Category.TODO, "k", "guidance");
+            return cache.markPrecomputed("k");
+        });
+        when(guidanceService.precompute(alice, Category.WISH)).thenReturn(true);
+
+        precomputer.precompute(new GuidanceCache.Scope(1L, Category.TODO));
+        precomputer.precompute(new GuidanceCache.Scope(1L, Category.WISH));
+        cache.get("k");
+
+        assertThat(precomputer.hitRate()).isEqualTo(0.5);
+        assertThat(registry.get("guidance.precompute.hits").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("guidance.precompute.hit_rate").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void failedPrecomputation_isCounted() {
+        GuidancePrecomputer precomputer = precomputer(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        precomputer.bindTo(registry);
+        when(history.hasAny(1L)).thenReturn(true);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(alice));
+        when(guidanceService.precompute(alice, Category.TODO)).thenThrow(new GuidanceUnavailableException("open"));
+
+        precomputer.precompute(new GuidanceCache.Scope(1L, Category.TODO));
+
+        assertThat(registry.get("guidance.precompute.runs").tag("outcome", "failed").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void interactiveCalls_getThrough_whilePrecomputingIsHeldBackForThem() throws Exception {
+        GuidancePrecomputer precomputer = precomputer(true, 100, 0.5);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        precomputer.bindTo(registry);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread interactive = Thread.ofVirtual().start(() -> bulkhead.execute(() -> {
+            SingleFlightTest.awaitLatch(release);
+            return "answer";
+        }));
+        await().until(() -> bulkhead.inFlight() == 1);
+
+        precomputer.precompute(new GuidanceCache.Scope(1L, Category.TODO));
+
+        assertThat(registry.get("guidance.precompute.runs").tag("outcome", "dropped").functionCounter().count())
+                .isEqualTo(1.0);
+        verifyNoInteractions(history, userRepo);
+        verify(guidanceService, never()).precompute(any(), any());
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(bulkhead.execute(() -> "second answer")).isEqualTo("second answer");
+
+        release.countDown();
+        interactive.join();
+    }
+
+    @Test
+    void precomputing_leavesTheReservedTokensToInteractiveCalls() {
+        GuidancePrecomputer precomputer = precomputer(true, 100, 0.5);
+        when(history.hasAny(1L)).thenReturn(true);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(alice));
+        when(guidanceService.precompute(eq(alice), any())).thenAnswer(inv -> limiter.tryAcquire());
+
+        for (Category category : Category.values()) {
+            precomputer.precompute(new GuidanceCache.Scope(1L, category));
+        }
+
+        // a burst of 4 with half reserved: two precomputations, then two interactive calls
+        verify(guidanceService, times(2)).precompute(eq(alice), any());
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void queuedScopes_areMergedAndTheQueueIsBounded() {
+        GuidancePrecomputer precomputer = precomputer(true, 1, 0);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        precomputer.bindTo(registry);
+        CountDownLatch release = new CountDownLatch(1);
+        when(history.hasAny(1L)).thenReturn(true);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(alice));
+        when(guidanceService.precompute(eq(alice), any())).thenAnswer(inv -> {
+            SingleFlightTest.awaitLatch(release);
+            return true;
+        });
+
+        precomputer.settle(new GuidanceCache.Scope(1L, Category.TODO));
+        verify(guidanceService, timeout(1000)).precompute(alice, Category.TODO);
+        precomputer.settle(new GuidanceCache.Scope(1L, Category.WISH));
+        precomputer.settle(new GuidanceCache.Scope(1L, Category.WISH));
+        precomputer.settle(new GuidanceCache.Scope(1L, Category.LONG_TERM));
+        release.countDown();
+
+        await().until(() -> precomputer.precomputedCount() == 2);
+        verify(guidanceService, times(1)).precompute(alice, Category.WISH);
+        verify(guidanceService, never()).precompute(alice, Category.LONG_TERM);
+        assertThat(registry.get("guidance.precompute.runs").tag("outcome", "dropped").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,97 @@
+package com.goalsapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GuidanceRateLimiterTest {
+
+    final GuidanceCacheTest.MutableClock clock = new GuidanceCacheTest.MutableClock();
+
+    @Test
+    void allowsBurst_thenRefillsAtConfiguredRate() {
+        GuidanceRateLimiter limiter = new GuidanceRateLimiter(60, 2, clock);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        clock.now = clock.now.plus(Duration.ofSeconds(1));
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.rejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void pausesUntilReset_whenUpstreamReportsNothingLeft() {
+        GuidanceRateLimiter limiter = new GuidanceRateLimiter(600, 10, clock);
+
+        limiter.onResponse(headers("x-ratelimit-remaining-requests", "0",
+                "x-ratelimit-reset-requests", "6m0s"));
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        clock.now = clock.now.plus(Duration.ofMinutes(5));
+        assertThat(limiter.tryAcquire()).isFalse();
+        clock.now = clock.now.plus(Duration.ofMinutes(1));
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void honoursRetryAfter() {
+        GuidanceRateLimiter limiter = new GuidanceRateLimiter(600, 10, clock);
+
+        limiter.onResponse(headers(HttpHeaders.RETRY_AFTER, "20"));
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        clock.now = clock.now.plus(Duration.ofSeconds(20));
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void followsLowerUpstreamLimitAndRemainder() {
+        GuidanceRateLimiter limiter = new GuidanceRateLimiter(600, 10, clock);
+
+        limiter.onResponse(headers("x-ratelimit-limit-requests", "6",
+                "x-ratelimit-remaining-requests", "1"));
+
+        assertThat(limiter.availableTokens()).isEqualTo(1.0);
+        assertThat(limiter.tryAcquire()).isTrue();
+        clock.now = clock.now.plus(Duration.ofSeconds(5));
+        assertThat(limiter.tryAcquire()).isFalse(); // 6/min refills one token every 10 s
+        clock.now = clock.now.plus(Duration.ofSeconds(5));
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void parseDuration_readsOpenAiFormat() {
+        assertThat(GuidanceRateLimiter.parseDuration("20ms")).isEqualTo(Duration.ofMillis(20));
+        assertThat(GuidanceRateLimiter.parseDuration("1.5s")).isEqualTo(Duration.ofMillis(1500));
+        assertThat(GuidanceRateLimiter.parseDuration("1h2m3s")).isEqualTo(Duration.ofSeconds(3723));
+        assertThat(GuidanceRateLimiter.parseDuration("soon")).isNull();
+    }
+
+    @Test
+    void bindTo_publishesTokensAndRejections() {
+        GuidanceRateLimiter limiter = new GuidanceRateLimiter(60, 1, clock);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        assertThat(registry.get("guidance.ratelimit.available").gauge().value()).isZero();
+        assertThat(registry.get("guidance.ratelimit.rejected").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private static HttpHeaders headers(String... pairs) {
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < pairs.length; i += 2) {
+            headers.add(pairs[i], pairs[i + 1]);
+        }
+        return headers;
+    }
+}
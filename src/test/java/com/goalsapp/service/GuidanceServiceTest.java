@@ -1,19 +1,51 @@
 package com.goalsapp.service;
 
+import com.goalsapp.dto.GoalItemView;
 import com.goalsapp.entity.Category;
-import com.goalsapp.entity.GoalItem;
+import com.goalsapp.entity.ResponseChain;
 import com.goalsapp.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 
 @ExtendWith(MockitoExtension.class)
 class GuidanceServiceTest {
@@ -21,24 +53,50 @@ class GuidanceServiceTest {
     @Mock
     GoalService goalService;
 
+    @Mock
+    GuidanceHistoryService history;
+
+    GuidanceCache cache = new GuidanceCache(10, Duration.ofMinutes(5));
+
+    GuidanceBulkhead bulkhead = new GuidanceBulkhead(2, 2, Duration.ofSeconds(1));
+
+    GuidanceCircuitBreaker breaker = new GuidanceCircuitBreaker(3, Duration.ofSeconds(30));
+
+    GuidanceRateLimiter limiter = new GuidanceRateLimiter(600, 50);
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    GuidanceMetrics metrics = new GuidanceMetrics(registry);
+
+    PromptBuilder prompts = new PromptBuilder(1500, 1500, 1500, 1500, 200);
+
+    GuidanceSimilarityIndex similar = new GuidanceSimilarityIndex(false, 0.9, 5, 100);
+
+    GuidanceClient client;
+
+    GuidanceService service;
+
+    MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        service(bulkhead, limiter, similar);
+    }
+
     @Test
     void getGuidance_returnsStub_whenOpenAiConfigMissing() {
-        GuidanceService service = new GuidanceService(goalService, "SYSTEM PROMPT");
-
-        // In Spring these @Value fields default to "" via ${...:}
-        ReflectionTestUtils.setField(service, "aiBaseUrl", "");
-        ReflectionTestUtils.setField(service, "aiApiKey", "");
+        stubMode();
 
         User user = new User("alice", "hash");
         when(goalService.list(user, Category.TODO)).thenReturn(List.of(
-                new GoalItem(user, Category.TODO, "task 1"),
-                new GoalItem(user, Category.TODO, "task 2")
+                view("task 1"),
+                view("task 2")
         ));
 
         String guidance = service.getGuidance(user, Category.TODO);
 
         assertThat(guidance).contains("[STUB GUIDANCE]");
-        assertThat(guidance).contains("SYSTEM PROMPT");
+        assertThat(guidance).contains("SYSTEM");
         assertThat(guidance).contains("These are my TODO items");
         assertThat(guidance).contains("- task 1");
         assertThat(guidance).contains("- task 2");
@@ -48,31 +106,638 @@ class GuidanceServiceTest {
     }
 
     @Test
-    void extractText_parsesResponsesApiShape() throws Exception {
-        GuidanceService service = new GuidanceService(goalService, "SYSTEM");
+    void getGuidance_reusesCachedAnswer_untilListChanges() {
+        String payload = """
+                {"output":[{"content":[{"text":"Plan it"}]}]}
+                """;
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andRespond(withSuccess(payload, MediaType.APPLICATION_JSON));
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(
+                view("task 1")
+        ));
+
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Plan it");
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Plan it");
+        server.verify();
+
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+        assertThat(registry.get("guidance.outbound").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("guidance.response.size").summary().totalAmount()).isEqualTo("Plan it".length());
+        assertThat(registry.get("guidance.prompt.size").summary().count()).isEqualTo(1);
+
+        // a change to the list invalidates the entry, so the next click calls out again
+        cache.onGoalItemsChanged(new GoalItemsChangedEvent(user.getId(), Category.TODO, 1));
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void precompute_warmsCache_soTheNextRequestIsAHit() {
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andRespond(withSuccess("""
+                        {"output":[{"content":[{"text":"Plan it"}]}]}
+                        """, MediaType.APPLICATION_JSON));
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view("task 1")));
+        when(goalService.list(user, Category.WISH)).thenReturn(List.of());
+
+        assertThat(service.precompute(user, Category.TODO)).isTrue();
+        // already cached, and nothing to precompute for an empty list
+        assertThat(service.precompute(user, Category.TODO)).isFalse();
+        assertThat(service.precompute(user, Category.WISH)).isFalse();
+
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Plan it");
+        server.verify();
+        assertThat(cache.precomputedHits()).isEqualTo(1);
+    }
+
+    @Test
+    void precompute_doesNothing_inStubMode() {
+        stubMode();
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view("task 1")));
+
+        assertThat(service.usesAi()).isFalse();
+        assertThat(service.precompute(user, Category.TODO)).isFalse();
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void getGuidance_storesFreshAnswer_withTokenUsage() {
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andRespond(withSuccess("""
+                        {"output":[{"content":[{"text":"Plan it"}]}],"usage":{"input_tokens":30,"output_tokens":4}}
+                        """, MediaType.APPLICATION_JSON));
+
+        User user = new User("alice", "hash");
+        List<GoalItemView> items = List.of(view("task 1"));
+        when(goalService.list(user, Category.TODO)).thenReturn(items);
+
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Plan it");
+
+        String contentKey = GuidanceCache.key("SYSTEM", "test-model", Category.TODO, prompts.itemList(Category.TODO, items));
+        verify(history).find(user.getId(), contentKey);
+        verify(history).record(user, Category.TODO, contentKey, "test-model", 30, 4, "Plan it", null);
+    }
+
+    @Test
+    void getGuidance_answersFromHistory_withoutCallingOut() {
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view("task 1")));
+        when(history.find(any(), anyString())).thenReturn(Optional.of("Stored plan"));
+
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Stored plan");
+        // the stored answer now sits in the in-memory cache as well
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Stored plan");
+
+        server.verify();
+        verify(history, times(1)).find(any(), anyString());
+        verify(history, never()).record(any(), any(), any(), any(), anyLong(), anyLong(), any(), any());
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void getFullPlan_makesOneCall_andFillsEachCategory() {
+        String plan = "{\\\"TODO\\\":\\\"Dishes first\\\",\\\"WISH\\\":\\\"Save for it\\\"}";
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andExpect(jsonPath("$.text.format.type").value("json_schema"))
+                .andExpect(jsonPath("$.text.format.schema.required").value(contains("TODO", "WISH")))
+                .andExpect(jsonPath("$.input").value(containsString("## TODO")))
+                .andRespond(withSuccess("""
+                        {"output":[{"content":[{"text":"%s"}]}],"usage":{"input_tokens":40,"output_tokens":10}}
+                        """.formatted(plan), MediaType.APPLICATION_JSON));
+
+        User user = new User("alice", "hash");
+        when(goalService.list(eq(user), any())).thenReturn(List.of());
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view("dishes")));
+        when(goalService.list(user, Category.WISH)).thenReturn(List.of(view("a bike")));
+
+        assertThat(service.getFullPlan(user)).containsExactly(
+                entry(Category.TODO, "Dishes first"),
+                entry(Category.WISH, "Save for it"));
+
+        // the category pages now find their answers without calling out
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Dishes first");
+        assertThat(service.getGuidance(user, Category.WISH)).isEqualTo("Save for it");
+        server.verify();
+        // the combined usage is billed once and shared out by estimated size, without losing any tokens
+        assertThat(registry.get("guidance.prompt.tokens").tag("mode", GuidanceMetrics.FULL).summary().totalAmount())
+                .isEqualTo(40);
+        ArgumentCaptor<Long> input = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> output = ArgumentCaptor.forClass(Long.class);
+        verify(history, times(2)).record(eq(user), any(), anyString(), eq("test-model"), input.capture(), output.capture(), any(), isNull());
+        assertThat(input.getAllValues()).allMatch(tokens -> tokens > 0);
+        assertThat(input.getAllValues().stream().mapToLong(Long::longValue).sum()).isEqualTo(40);
+        assertThat(output.getAllValues().stream().mapToLong(Long::longValue).sum()).isEqualTo(10);
+    }
+
+    @Test
+    void apportion_splitsByWeight_andHandsOutTheRemainder() {
+        assertThat(GuidanceService.apportion(10, new int[]{1, 1, 1})).containsExactly(4, 3, 3);
+        assertThat(GuidanceService.apportion(10, new int[]{1, 3})).containsExactly(3, 7);
+        assertThat(GuidanceService.apportion(7, new int[]{0, 0})).containsExactly(4, 3);
+        assertThat(GuidanceService.apportion(5, new int[]{2, 0})).containsExactly(5, 0);
+        assertThat(GuidanceService.apportion(0, new int[]{2, 1})).containsExactly(0, 0);
+    }
+
+    @Test
+    void getFullPlan_asksOnlyForCategoriesWithoutAnAnswer() {
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andExpect(jsonPath("$.text.format.schema.required").value(contains("WISH")))
+                .andRespond(withSuccess("""
+                        {"output":[{"content":[{"text":"not json"}]}]}
+                        """, MediaType.APPLICATION_JSON));
+
+        User user = new User("alice", "hash");
+        List<GoalItemView> todo = List.of(view("dishes"));
+        when(goalService.list(eq(user), any())).thenReturn(List.of());
+        when(goalService.list(user, Category.TODO)).thenReturn(todo);
+        when(goalService.list(user, Category.WISH)).thenReturn(List.of(view("a bike")));
+        cache.put(user.getId(), Category.TODO,
+                GuidanceCache.key("SYSTEM", "test-model", Category.TODO, prompts.itemList(Category.TODO, todo)), "Cached");
+
+        assertThat(service.getFullPlan(user)).containsExactly(
+                entry(Category.TODO, "Cached"),
+                entry(Category.WISH, GuidanceClient.UNPARSEABLE_RESPONSE));
+        server.verify();
+        verify(history, never()).record(any(), any(), any(), any(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void streamGuidance_streamsStubLineByLine_whenOpenAiConfigMissing() {
+        stubMode();
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.WISH)).thenReturn(List.of(
+                view("a bike")
+        ));
+
+        List<String> deltas = new ArrayList<>();
+        String guidance = service.streamGuidance(user, Category.WISH, deltas::add);
+
+        assertThat(deltas).hasSizeGreaterThan(1);
+        assertThat(String.join("", deltas)).isEqualTo(guidance);
+        assertThat(guidance).contains("[STUB GUIDANCE]", "- a bike");
+    }
+
+    @Test
+    void streamGuidance_forwardsTextDeltas_andCachesFullText() {
+        String events = """
+                event: response.created
+                data: {"type":"response.created","response":{"id":"resp_1"}}
+
+                event: response.output_text.delta
+                data: {"type":"response.output_text.delta","delta":"Plan "}
+
+                event: response.output_text.delta
+                data: {"type":"response.output_text.delta","delta":"it"}
+
+                event: response.completed
+                data: {"type":"response.completed","response":{"id":"resp_1","usage":{"input_tokens":12,"output_tokens":2}}}
+
+                """;
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andExpect(jsonPath("$.stream").value(true))
+                .andRespond(withSuccess(events, MediaType.TEXT_EVENT_STREAM));
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(
+                view("task 1")
+        ));
+
+        List<String> deltas = new ArrayList<>();
+        assertThat(service.streamGuidance(user, Category.TODO, deltas::add)).isEqualTo("Plan it");
+        assertThat(deltas).containsExactly("Plan ", "it");
+
+        // second request is answered from the cache in a single delta
+        deltas.clear();
+        assertThat(service.streamGuidance(user, Category.TODO, deltas::add)).isEqualTo("Plan it");
+        assertThat(deltas).containsExactly("Plan it");
+        server.verify();
+        verify(history).record(eq(user), eq(Category.TODO), anyString(), eq("test-model"), eq(12L), eq(2L), eq("Plan it"), any());
+    }
+
+    @Test
+    void streamGuidance_clientGoingAway_doesNotFailFollowers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        String events = """
+                event: response.output_text.delta
+                data: {"type":"response.output_text.delta","delta":"Plan "}
+
+                event: response.output_text.delta
+                data: {"type":"response.output_text.delta","delta":"it"}
+
+                event: response.completed
+                data: {"type":"response.completed","response":{"id":"resp_1","usage":{"input_tokens":12,"output_tokens":2}}}
+
+                """;
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andRespond(request -> {
+                    SingleFlightTest.awaitLatch(release);
+                    return withSuccess(events, MediaType.TEXT_EVENT_STREAM).createResponse(request);
+                });
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(
+                view("task 1")
+        ));
+
+        List<String> delivered = new ArrayList<>();
+        UncheckedIOException gone = new UncheckedIOException(new IOException("Broken pipe"));
+        CompletableFuture<String> streaming = CompletableFuture.supplyAsync(() -> service.streamGuidance(user, Category.TODO, delta -> {
+            delivered.add(delta);
+            throw gone;
+        }));
+        await().until(() -> flight(service).inFlight() == 1);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> service.getGuidance(user, Category.TODO));
+        await().until(() -> coalesced(service) == 1);
+        release.countDown();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("Plan it");
+        assertThatThrownBy(() -> streaming.get(5, TimeUnit.SECONDS)).hasCause(gone);
+        assertThat(delivered).containsExactly("Plan ");
+        assertThat(cache.peek(GuidanceCache.key("SYSTEM", "test-model", Category.TODO,
+                prompts.itemList(Category.TODO, List.of(view("task 1")))))).contains("Plan it");
+        verify(history).record(eq(user), eq(Category.TODO), anyString(), eq("test-model"), eq(12L), eq(2L), eq("Plan it"), any());
+        server.verify();
+    }
+
+    @Test
+    void streamGuidance_emitsFriendlyError_whenUpstreamRejects() {
+        server.expect(requestTo("http://ai.test/v1/responses")).andRespond(withUnauthorizedRequest());
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of());
+
+        List<String> deltas = new ArrayList<>();
+        String guidance = service.streamGuidance(user, Category.TODO, deltas::add);
+
+        assertThat(guidance).contains("Authentication failed (401 Unauthorized)");
+        assertThat(deltas).containsExactly(guidance);
+        assertThat(cache.stats().size()).isZero();
+        assertThat(registry.get("guidance.errors").tag("class", "401").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("guidance.outbound").tag("outcome", "401").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getGuidance_failsFastWithFriendlyMessage_whenBulkheadFull() {
+        GuidanceBulkhead full = mock(GuidanceBulkhead.class);
+        when(full.execute(any(), any())).thenThrow(new BulkheadFullException("Guidance queue is full."));
+
+        service(full, limiter, similar);
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of());
+
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo(GuidanceService.BUSY);
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void getGuidance_givesUp_whenCallExceedsTotalTimeout() {
+        GuidanceBulkhead slow = mock(GuidanceBulkhead.class);
+        when(slow.execute(any(), any())).thenThrow(new GuidanceTimeoutException("AI call did not finish within PT2M."));
+
+        service(slow, limiter, similar);
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of());
+
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo(GuidanceService.TIMED_OUT);
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void getGuidance_opensBreakerOnRepeated429_andFallsBackToLastGuidance() {
+        server.expect(ExpectedCount.times(3), requestTo("http://ai.test/v1/responses"))
+                .andRespond(withTooManyRequests());
+
+        User user = new User("alice", "hash");
+        cache.put(user.getId(), Category.TODO, "earlier", "Earlier plan");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view("task 1")));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(service.getGuidance(user, Category.TODO)).contains("insufficient quota");
+        }
+        assertThat(breaker.state()).isEqualTo(GuidanceCircuitBreaker.State.OPEN);
+
+        // no fourth request goes out; the last answer is served instead
+        String fallback = service.getGuidance(user, Category.TODO);
+        assertThat(fallback).startsWith(GuidanceService.UNAVAILABLE).endsWith("Earlier plan");
+        server.verify();
+    }
+
+    @Test
+    void getGuidance_fallsBackToStub_whenRateLimitedWithoutEarlierGuidance() {
+        GuidanceRateLimiter empty = new GuidanceRateLimiter(1, 1);
+        empty.tryAcquire();
 
-        // Build a minimal "Responses API" payload that matches extractText()
-        Map<String, Object> resp = Map.of(
-                "output", List.of(
-                        Map.of(
-                                "content", List.of(
-                                        Map.of("text", "Hello from OpenAI")
-                                )
-                        )
-                )
-        );
+        service(bulkhead, empty, similar);
 
-        String text = (String) ReflectionTestUtils.invokeMethod(service, "extractText", resp);
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view("task 1")));
+
+        String fallback = service.getGuidance(user, Category.TODO);
+
+        assertThat(fallback).startsWith(GuidanceService.UNAVAILABLE).contains("[STUB GUIDANCE]");
+        assertThat(breaker.state()).isEqualTo(GuidanceCircuitBreaker.State.CLOSED);
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void generate_throwsFailures_thatGetGuidanceDescribes() {
+        GuidanceRateLimiter empty = new GuidanceRateLimiter(1, 1);
+        empty.tryAcquire();
+
+        service(bulkhead, empty, similar);
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view("task 1")));
+
+        assertThatThrownBy(() -> service.generate(user, Category.TODO))
+                .isInstanceOf(GuidanceUnavailableException.class)
+                .satisfies(e -> {
+                    assertThat(GuidanceService.isRetryable((RuntimeException) e)).isTrue();
+                    assertThat(service.failureMessage(user, Category.TODO, (RuntimeException) e))
+                            .isEqualTo(service.getGuidance(user, Category.TODO));
+                });
+    }
+
+    @Test
+    void isRetryable_onlyForFailuresThatMayPass() {
+        assertThat(GuidanceService.isRetryable(new BulkheadFullException("full"))).isTrue();
+        assertThat(GuidanceService.isRetryable(new GuidanceTimeoutException("slow"))).isTrue();
+        assertThat(GuidanceService.isRetryable(new CancellationException("worker stopping"))).isTrue();
+        assertThat(GuidanceService.isRetryable(new ResourceAccessException("down"))).isTrue();
+        assertThat(GuidanceService.isRetryable(
+                HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "", null, null, null))).isTrue();
+        assertThat(GuidanceService.isRetryable(
+                HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "", null, null, null))).isTrue();
+        assertThat(GuidanceService.isRetryable(
+                HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "", null, null, null))).isFalse();
+        assertThat(GuidanceService.isRetryable(new IllegalStateException("bug"))).isFalse();
+    }
+
+    @Test
+    void getGuidance_concurrentIdenticalRequests_makeOneUpstreamCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andRespond(request -> {
+                    SingleFlightTest.awaitLatch(release);
+                    return withSuccess("""
+                            {"output":[{"content":[{"text":"Shared plan"}]}]}
+                            """, MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(
+                view("task 1")
+        ));
 
-        assertThat(text).isEqualTo("Hello from OpenAI");
+        List<String> results = runConcurrently(8, () -> service.getGuidance(user, Category.TODO),
+                () -> coalesced(service) == 7, release);
+
+        assertThat(results).hasSize(8).containsOnly("Shared plan");
+        server.verify();
     }
 
     @Test
-    void extractText_returnsFallback_whenShapeUnexpected() {
-        GuidanceService service = new GuidanceService(goalService, "SYSTEM");
+    void getGuidance_concurrentIdenticalRequests_renderStubOnce() throws Exception {
+        stubMode();
+        GuidanceService service = spy(this.service);
+
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            SingleFlightTest.awaitLatch(release);
+            return inv.callRealMethod();
+        }).when(service).stubGuidance(anyString());
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.WISH)).thenReturn(List.of(
+                view("a bike")
+        ));
+
+        List<String> results = runConcurrently(8, () -> service.getGuidance(user, Category.WISH),
+                () -> coalesced(service) == 7, release);
+
+        assertThat(results).hasSize(8).allSatisfy(g -> assertThat(g).contains("[STUB GUIDANCE]"));
+        verify(service, times(1)).stubGuidance(anyString());
+    }
+
+    @Test
+    void getGuidance_incremental_continuesChainWithOnlyTheAddedItems() {
+        incremental();
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andExpect(jsonPath("$.previous_response_id").value("resp_1"))
+                .andExpect(jsonPath("$.input").value(containsString("- task 3")))
+                .andExpect(jsonPath("$.input").value(not(containsString("task 1"))))
+                .andExpect(jsonPath("$.input").value(not(containsString("SYSTEM"))))
+                .andRespond(withSuccess("""
+                        {"id":"resp_2","output":[{"content":[{"text":"Now with task 3"}]}],
+                         "usage":{"input_tokens":15,"output_tokens":4}}
+                        """, MediaType.APPLICATION_JSON));
+
+        User user = new User("alice", "hash");
+        Instant started = Instant.now().minus(Duration.ofHours(1));
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view(1L, "task 1"), view(2L, "task 2"), view(3L, "task 3")));
+        when(history.latestChain(user.getId(), Category.TODO))
+                .thenReturn(Optional.of(new ResponseChain("resp_1", basis(), 2, 2, 0, started)));
+
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Now with task 3");
+
+        server.verify();
+        ArgumentCaptor<ResponseChain> chain = ArgumentCaptor.forClass(ResponseChain.class);
+        verify(history).record(eq(user), eq(Category.TODO), anyString(), eq("test-model"), eq(15L), eq(4L),
+                eq("Now with task 3"), chain.capture());
+        assertThat(chain.getValue().getResponseId()).isEqualTo("resp_2");
+        assertThat(chain.getValue().getLastItemId()).isEqualTo(3);
+        assertThat(chain.getValue().getItemCount()).isEqualTo(3);
+        assertThat(chain.getValue().getLength()).isEqualTo(1);
+        assertThat(chain.getValue().getStartedAt()).isEqualTo(started.truncatedTo(ChronoUnit.MICROS));
+        assertThat(registry.get("guidance.prompt.tokens").tag("mode", "incremental").summary().totalAmount()).isEqualTo(15.0);
+    }
+
+    @Test
+    void getGuidance_incremental_fallsBackToFullPrompt_whenPreviousResponseIsUnknown() {
+        incremental();
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andExpect(jsonPath("$.previous_response_id").value("resp_1"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"error\":{\"code\":\"previous_response_not_found\"}}"));
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andExpect(jsonPath("$.previous_response_id").doesNotExist())
+                .andExpect(jsonPath("$.input").value(containsString("- task 1")))
+                .andRespond(withSuccess("""
+                        {"id":"resp_9","output":[{"content":[{"text":"Fresh start"}]}],
+                         "usage":{"input_tokens":90,"output_tokens":4}}
+                        """, MediaType.APPLICATION_JSON));
+
+        User user = new User("alice", "hash");
+        when(goalService.list(user, Category.TODO)).thenReturn(List.of(view(1L, "task 1"), view(2L, "task 2")));
+        when(history.latestChain(user.getId(), Category.TODO))
+                .thenReturn(Optional.of(new ResponseChain("resp_1", basis(), 1, 1, 0, Instant.now())));
+
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Fresh start");
+
+        server.verify();
+        ArgumentCaptor<ResponseChain> chain = ArgumentCaptor.forClass(ResponseChain.class);
+        verify(history).record(any(), any(), any(), any(), anyLong(), anyLong(), any(), chain.capture());
+        assertThat(chain.getValue().getResponseId()).isEqualTo("resp_9");
+        assertThat(chain.getValue().getLength()).isZero();
+        assertThat(registry.get("guidance.prompt.tokens").tag("mode", "full").summary().totalAmount()).isEqualTo(90.0);
+    }
+
+    @Test
+    void getGuidance_incremental_sendsFullPrompt_whenChainCannotBeContinued() {
+        User user = new User("alice", "hash");
+        List<GoalItemView> items = List.of(view(1L, "task 1"), view(2L, "task 2"));
+        when(goalService.list(user, Category.TODO)).thenReturn(items);
+
+        List<ResponseChain> unusable = List.of(
+                new ResponseChain("resp_1", basis(), 1, 1, 0, Instant.now().minus(Duration.ofDays(2))),   // too old
+                new ResponseChain("resp_1", basis(), 1, 1, 5, Instant.now()),                             // too long
+                new ResponseChain("resp_1", "other prompt", 1, 1, 0, Instant.now()),                      // new system prompt or model
+                new ResponseChain("resp_1", basis(), 2, 2, 0, Instant.now()),                             // nothing added
+                new ResponseChain("resp_1", basis(), 1, 3, 0, Instant.now()));                            // items removed
+        incremental();
+        for (ResponseChain head : unusable) {
+            server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                    .andExpect(jsonPath("$.previous_response_id").doesNotExist())
+                    .andExpect(jsonPath("$.input").value(containsString("SYSTEM")))
+                    .andRespond(withSuccess("""
+                            {"output":[{"content":[{"text":"Full"}]}]}
+                            """, MediaType.APPLICATION_JSON));
+            when(history.latestChain(user.getId(), Category.TODO)).thenReturn(Optional.of(head));
+
+            assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Full");
+            server.verify();
+            server.reset();
+            cache.invalidate(user.getId(), Category.TODO);
+        }
+    }
+
+    @Test
+    void getGuidance_nearlyIdenticalList_reusesEarlierAnswer_markedAsReused() {
+        service(bulkhead, limiter, new GuidanceSimilarityIndex(true, 0.85, 5, 100));
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andRespond(withSuccess("""
+                        {"output":[{"content":[{"text":"Plan it"}]}]}
+                        """, MediaType.APPLICATION_JSON));
+
+        User user = new User("alice", "hash");
+        List<GoalItemView> items = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            items.add(view("write chapter " + i + " of the thesis draft"));
+        }
+        when(goalService.list(user, Category.TODO)).thenReturn(List.copyOf(items));
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo("Plan it");
+
+        items.set(7, view("write chapter 8 of the thesis introduction"));
+        when(goalService.list(user, Category.TODO)).thenReturn(List.copyOf(items));
+        String reused = service.getGuidance(user, Category.TODO);
+
+        assertThat(reused).startsWith("♻️ Your list is").endsWith("Plan it");
+        assertThat(service.getGuidance(user, Category.TODO)).isEqualTo(reused);
+        server.verify();
+        verify(history, times(1)).record(any(), any(), any(), any(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void getGuidance_reusedAnswer_isNotSharedWithOtherUsersWithTheSameList() {
+        service(bulkhead, limiter, new GuidanceSimilarityIndex(true, 0.85, 5, 100));
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andRespond(withSuccess("""
+                        {"output":[{"content":[{"text":"Plan it"}]}]}
+                        """, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo("http://ai.test/v1/responses"))
+                .andRespond(withSuccess("""
+                        {"output":[{"content":[{"text":"Plan it, Bob"}]}]}
+                        """, MediaType.APPLICATION_JSON));
+
+        User alice = new User("alice", "hash");
+        ReflectionTestUtils.setField(alice, "id", 1L);
+        User bob = new User("bob", "hash");
+        ReflectionTestUtils.setField(bob, "id", 2L);
+        List<GoalItemView> items = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            items.add(view("write chapter " + i + " of the thesis draft"));
+        }
+        when(goalService.list(alice, Category.TODO)).thenReturn(List.copyOf(items));
+        assertThat(service.getGuidance(alice, Category.TODO)).isEqualTo("Plan it");
+
+        items.set(7, view("write chapter 8 of the thesis introduction"));
+        when(goalService.list(alice, Category.TODO)).thenReturn(List.copyOf(items));
+        when(goalService.list(bob, Category.TODO)).thenReturn(List.copyOf(items));
+        assertThat(service.getGuidance(alice, Category.TODO)).startsWith("♻️ Your list is");
+
+        assertThat(service.getGuidance(bob, Category.TODO)).isEqualTo("Plan it, Bob");
+        server.verify();
+    }
+
+    private static GoalItemView view(String text) {
+        return view(null, text);
+    }
+
+    private static GoalItemView view(Long id, String text) {
+        return new GoalItemView(id, text, Instant.now());
+    }
+
+    /**
+     * Builds {@link #service} with these collaborators and a {@link #client} that sends
+     * to {@link #server} (the AI endpoint at {@code http://ai.test/v1/responses}).
+     */
+    private void service(GuidanceBulkhead bulkhead, GuidanceRateLimiter limiter, GuidanceSimilarityIndex similar) {
+        RestClient.Builder builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).build();
+        client = new GuidanceClient(bulkhead, breaker, limiter, metrics, history, prompts, builder.build(), "SYSTEM");
+        ReflectionTestUtils.setField(client, "aiBaseUrl", "http://ai.test/v1/responses");
+        ReflectionTestUtils.setField(client, "aiApiKey", "key");
+        ReflectionTestUtils.setField(client, "model", "test-model");
+        service = new GuidanceService(goalService, cache, history, metrics, prompts, similar, client, "SYSTEM");
+    }
+
+    /** Without the endpoint's URL and key, as with the {@code ${...:}} defaults in Spring. */
+    private void stubMode() {
+        ReflectionTestUtils.setField(client, "aiBaseUrl", "");
+        ReflectionTestUtils.setField(client, "aiApiKey", "");
+    }
+
+    private void incremental() {
+        ReflectionTestUtils.setField(client, "incremental", true);
+    }
+
+    private static String basis() {
+        return GuidanceCache.key("SYSTEM", "test-model", Category.TODO, "");
+    }
+
+    private static long coalesced(GuidanceService service) {
+        return flight(service).coalescedCount();
+    }
+
+    private static SingleFlight<?, ?> flight(GuidanceService service) {
+        return (SingleFlight<?, ?>) ReflectionTestUtils.getField(service, "inFlight");
+    }
 
-        String text = (String) ReflectionTestUtils.invokeMethod(service, "extractText", Map.of("x", 1));
+    private static List<String> runConcurrently(int callers, Supplier<String> call,
+                                                Callable<Boolean> allJoined,
+                                                CountDownLatch release) throws Exception {
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(CompletableFuture.supplyAsync(call, pool));
+            }
+            await().until(allJoined);
+            release.countDown();
 
-        assertThat(text).isEqualTo("Could not parse OpenAI response.");
+            List<String> results = new ArrayList<>();
+            for (CompletableFuture<String> f : futures) {
+                results.add(f.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.Category;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GuidanceSimilarityIndexTest {
+
+    GuidanceSimilarityIndex index = new GuidanceSimilarityIndex(true, 0.9, 2, 2);
+
+    @Test
+    void signature_estimatesJaccardSimilarity() {
+        List<String> items = items(50);
+        List<String> oneChanged = new ArrayList<>(items);
+        oneChanged.set(20, "- call the plumber about the kitchen sink");
+
+        double similarity = GuidanceSimilarityIndex.similarity(
+                GuidanceSimilarityIndex.signature(list(items)), GuidanceSimilarityIndex.signature(list(oneChanged)));
+        double unrelated = GuidanceSimilarityIndex.similarity(
+                GuidanceSimilarityIndex.signature(list(items)),
+                GuidanceSimilarityIndex.signature("- learn to juggle\n- plant tomatoes\n- visit grandma"));
+
+        assertThat(similarity).isGreaterThan(0.85).isLessThan(1.0);
+        assertThat(unrelated).isLessThan(0.1);
+        assertThat(GuidanceSimilarityIndex.signature("- Buy  MILK!")).isEqualTo(GuidanceSimilarityIndex.signature("- buy milk"));
+    }
+
+    @Test
+    void find_returnsAnswerForNearlyIdenticalList_onlyInSameScopeAndBasis() {
+        List<String> items = items(50);
+        index.add(1L, Category.TODO, "basis", list(items), "Plan it");
+
+        List<String> oneMore = new ArrayList<>(items);
+        oneMore.add(0, "- renew the passport");
+
+        assertThat(index.find(1L, Category.TODO, "basis", list(oneMore)))
+                .hasValueSatisfying(match -> {
+                    assertThat(match.guidance()).isEqualTo("Plan it");
+                    assertThat(match.similarity()).isGreaterThanOrEqualTo(0.9);
+                });
+        assertThat(index.find(1L, Category.WISH, "basis", list(oneMore))).isEmpty();
+        assertThat(index.find(2L, Category.TODO, "basis", list(oneMore))).isEmpty();
+        assertThat(index.find(1L, Category.TODO, "new model", list(oneMore))).isEmpty();
+        assertThat(index.find(1L, Category.TODO, "basis", list(items(5)))).isEmpty();
+    }
+
+    @Test
+    void add_keepsNewestAnswersPerScope_andLeastRecentlyUsedScopes() {
+        index.add(1L, Category.TODO, "basis", list(items(10)), "first");
+        index.add(1L, Category.TODO, "basis", "- something else entirely", "second");
+        index.add(1L, Category.TODO, "basis", "- and a third list", "third");
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.find(1L, Category.TODO, "basis", list(items(10)))).isEmpty();
+
+        index.add(1L, Category.TODO, "basis", "- and a third list", "third, again");
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.find(1L, Category.TODO, "basis", "- and a third list"))
+                .hasValueSatisfying(match -> assertThat(match.guidance()).isEqualTo("third, again"));
+
+        index.add(2L, Category.TODO, "basis", "- bob's list", "bob");
+        index.add(3L, Category.TODO, "basis", "- carol's list", "carol");
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.find(1L, Category.TODO, "basis", "- and a third list")).isEmpty();
+    }
+
+    @Test
+    void metrics_reportHitRateEntriesAndMemory() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        index.bindTo(registry);
+
+        index.add(1L, Category.TODO, "basis", "- buy milk", "Plan it");
+        index.find(1L, Category.TODO, "basis", "- buy milk");
+        index.find(1L, Category.TODO, "basis", "- sell the car");
+
+        assertThat(registry.get("guidance.similarity.lookups").tag("outcome", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("guidance.similarity.lookups").tag("outcome", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("guidance.similarity.hit_rate").gauge().value()).isEqualTo(0.5);
+        assertThat(registry.get("guidance.similarity.entries").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("guidance.similarity.memory").gauge().value()).isPositive();
+    }
+
+    @Test
+    void disabledIndex_keepsNothing() {
+        GuidanceSimilarityIndex disabled = new GuidanceSimilarityIndex(false, 0.9, 2, 2);
+
+        disabled.add(1L, Category.TODO, "basis", "- buy milk", "Plan it");
+
+        assertThat(disabled.find(1L, Category.TODO, "basis", "- buy milk")).isEmpty();
+        assertThat(disabled.size()).isZero();
+    }
+
+    private static List<String> items(int count) {
+        String[] verbs = {"clean", "write", "fix", "book", "plan", "read", "call", "buy"};
+        String[] things = {"the garage", "a birthday card", "the bike", "a dentist visit", "the trip", "chapter", "the bank", "new shoes"};
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> "- " + verbs[i % verbs.length] + " " + things[(i * 3) % things.length] + " number " + i)
+                .toList();
+    }
+
+    private static String list(List<String> items) {
+        return String.join("\n", items);
+    }
+}
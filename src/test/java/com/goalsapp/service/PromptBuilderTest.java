@@ -0,0 +1,111 @@
+package com.goalsapp.service;
+
+import com.goalsapp.dto.GoalItemView;
+import com.goalsapp.entity.Category;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromptBuilderTest {
+
+    static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    final PromptBuilder prompts = new PromptBuilder(Map.of(
+            Category.LONG_TERM, 1500,
+            Category.SHORT_TERM, 1500,
+            Category.TODO, 60,
+            Category.WISH, 1500), 40);
+
+    @Test
+    void itemList_rendersSmallListsUnchanged() {
+        List<GoalItemView> items = List.of(item(2, "task 2"), item(1, "task 1"));
+
+        assertThat(prompts.itemList(Category.TODO, items)).isEqualTo("- task 2\n- task 1");
+        assertThat(prompts.itemList(Category.TODO, List.of())).isEqualTo(PromptBuilder.NO_ITEMS);
+    }
+
+    @Test
+    void itemList_keepsNewestItemsWithinBudget_andReportsTheRest() {
+        List<GoalItemView> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(item(i, "task " + i)); // oldest first, to show the order is not trusted
+        }
+
+        String list = prompts.itemList(Category.TODO, items);
+
+        assertThat(TokenEstimator.estimate(list) + list.lines().count()).isLessThanOrEqualTo(60);
+        assertThat(list).startsWith("- task 49\n- task 48\n");
+        int shown = (int) list.lines().filter(l -> l.startsWith("- ")).count();
+        assertThat(list).endsWith("(%d older or repeated items omitted to keep this list short)".formatted(50 - shown));
+        assertThat(prompts.itemList(Category.WISH, items)).doesNotContain("omitted");
+    }
+
+    @Test
+    void itemList_listsNearIdenticalItemsOnce_whenCompacting() {
+        List<GoalItemView> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(item(100 + i, i % 2 == 0 ? "Buy milk!" : "buy   MILK"));
+        }
+        items.add(item(1, "call mum"));
+
+        String list = prompts.itemList(Category.TODO, items);
+
+        assertThat(list).isEqualTo("""
+                - buy   MILK
+                - call mum
+                (19 older or repeated items omitted to keep this list short)""");
+    }
+
+    @Test
+    void itemList_shortensLongTexts_whenCompacting() {
+        String essay = "Write a long essay about every single thing I want to remember from this year";
+        List<GoalItemView> items = new ArrayList<>();
+        items.add(item(99, essay));
+        for (int i = 0; i < 30; i++) {
+            items.add(item(i, "task " + i));
+        }
+
+        String list = prompts.itemList(Category.TODO, items);
+
+        assertThat(list).startsWith("- Write a long essay about every single…\n");
+    }
+
+    @Test
+    void truncate_cutsAtWordBoundary_orHardWithoutOne() {
+        assertThat(prompts.truncate("short")).isEqualTo("short");
+        assertThat(prompts.truncate("x".repeat(60))).isEqualTo("x".repeat(39) + "…");
+    }
+
+    @Test
+    void normalize_ignoresCaseSpacingAndPunctuation() {
+        assertThat(PromptBuilder.normalize("  Buy, milk!! ")).isEqualTo(PromptBuilder.normalize("buy milk"));
+        assertThat(PromptBuilder.normalize("buy milk")).isNotEqualTo(PromptBuilder.normalize("buy silk"));
+    }
+
+    @Test
+    void prompt_fillsCategoryTemplate() {
+        assertThat(prompts.prompt(Category.TODO, "- a")).startsWith("These are my TODO items:\n- a\n");
+    }
+
+    @Test
+    void planPrompt_headsEachCategoryWithItsFieldName() {
+        Map<Category, String> lists = new EnumMap<>(Category.class);
+        lists.put(Category.TODO, "- dishes");
+        lists.put(Category.WISH, "- a bike");
+
+        assertThat(prompts.planPrompt(lists)).containsSubsequence(
+                "JSON field named after the section",
+                "## TODO\nThese are my TODO items:\n- dishes",
+                "## WISH\nThese are items on my wish list:\n- a bike");
+    }
+
+    private static GoalItemView item(long id, String text) {
+        return new GoalItemView(id, text, T0.plusSeconds(id));
+    }
+}
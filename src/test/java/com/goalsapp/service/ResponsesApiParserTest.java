@@ -0,0 +1,74 @@
+package com.goalsapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResponsesApiParserTest {
+
+    @Test
+    void parse_readsIdTextAndUsage_skippingEverythingElse() throws IOException {
+        ResponsesApiParser.Result result = parse("""
+                {
+                  "id": "resp_1",
+                  "metadata": {"nested": {"text": "not this"}},
+                  "reasoning": {"effort": null, "summary": null},
+                  "output": [
+                    {
+                      "type": "message",
+                      "role": "assistant",
+                      "content": [{"type": "output_text", "text": "Plan it", "annotations": [{"text": "no"}]}]
+                    }
+                  ],
+                  "tools": [{"type": "function", "text": "no"}],
+                  "usage": {"input_tokens": 328, "input_tokens_details": {"cached_tokens": 0}, "output_tokens": 812}
+                }
+                """);
+
+        assertThat(result).isEqualTo(new ResponsesApiParser.Result("Plan it", 328, 812, "resp_1"));
+    }
+
+    @Test
+    void parse_joinsEveryTextPartOfEveryMessage_inOrder() throws IOException {
+        ResponsesApiParser.Result result = parse("""
+                {"output": [
+                  {"type": "reasoning", "summary": [{"type": "summary_text", "text": "thinking"}],
+                   "content": [{"type": "reasoning_text", "text": "hidden"}]},
+                  {"type": "message", "content": [
+                    {"type": "output_text", "text": "Part one. "},
+                    {"type": "refusal", "refusal": "no"},
+                    {"type": "output_text", "text": "Part two. "}
+                  ]},
+                  {"content": [{"text": "Part three."}], "type": "message"}
+                ]}
+                """);
+
+        assertThat(result.text()).isEqualTo("Part one. Part two. Part three.");
+        assertThat(result.inputTokens()).isZero();
+    }
+
+    @Test
+    void parse_returnsEmptyText_whenNoMessage() throws IOException {
+        assertThat(parse("{\"output\": [], \"status\": \"incomplete\"}").text()).isEmpty();
+    }
+
+    @Test
+    void parse_returnsNull_forEmptyBody() throws IOException {
+        assertThat(parse("")).isNull();
+    }
+
+    @Test
+    void parse_rejectsNonObjectBodies() {
+        assertThatThrownBy(() -> parse("[1, 2]")).isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> parse("{\"output\": [")).isInstanceOf(JsonProcessingException.class);
+    }
+
+    private static ResponsesApiParser.Result parse(String json) throws IOException {
+        return ResponsesApiParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,124 @@
+package com.goalsapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersWithSameKey_shareOneExecution() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+                    executions.incrementAndGet();
+                    awaitLatch(release);
+                    return "result";
+                }), pool));
+            }
+            await().until(() -> flight.coalescedCount() == callers - 1);
+            release.countDown();
+
+            for (CompletableFuture<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            }
+        }
+
+        assertThat(executions).hasValue(1);
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void differentKeys_runIndependently() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+
+        assertThat(flight.execute("a", () -> 1)).isEqualTo(1);
+        assertThat(flight.execute("b", () -> 2)).isEqualTo(2);
+        assertThat(flight.coalescedCount()).isZero();
+    }
+
+    @Test
+    void keyIsReleased_afterCompletion() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+
+        flight.execute("k", executions::incrementAndGet);
+        flight.execute("k", executions::incrementAndGet);
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void failure_isSharedWithWaiters_unwrapped_andKeyReleased() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+            awaitLatch(release);
+            throw new GuidanceTimeoutException("upstream slow");
+        }));
+        await().until(() -> flight.inFlight() == 1);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> "unused"));
+        await().until(() -> flight.coalescedCount() == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .hasCauseExactlyInstanceOf(GuidanceTimeoutException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .hasCauseExactlyInstanceOf(GuidanceTimeoutException.class)
+                .hasRootCauseMessage("upstream slow");
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void interruptedWaiter_isCancelled_keepsItsFlag_andLeaderFinishes() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+            awaitLatch(release);
+            return "result";
+        }));
+        await().until(() -> flight.inFlight() == 1);
+
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        Thread waiting = Thread.ofVirtual().start(() -> {
+            try {
+                flight.execute("k", () -> "unused");
+            } catch (RuntimeException e) {
+                failure.complete(Thread.currentThread().isInterrupted() ? e : new AssertionError("flag cleared"));
+            }
+        });
+        await().until(() -> flight.coalescedCount() == 1);
+        waiting.interrupt();
+
+        assertThat(failure.get(5, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+    }
+
+    static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.goalsapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TokenEstimatorTest {
+
+    @Test
+    void countsWordsByLength_andPunctuationSeparately() {
+        assertThat(TokenEstimator.estimate("")).isZero();
+        assertThat(TokenEstimator.estimate("buy milk")).isEqualTo(2);
+        assertThat(TokenEstimator.estimate("- buy milk!")).isEqualTo(4);
+        assertThat(TokenEstimator.estimate("internationalization")).isEqualTo(5);
+    }
+
+    @Test
+    void countsEachNonLatinCharacter() {
+        assertThat(TokenEstimator.estimate("牛乳を買う")).isEqualTo(5);
+        assertThat(TokenEstimator.estimate("café")).isEqualTo(1);
+        assertThat(TokenEstimator.estimate("run 🏃")).isEqualTo(2);
+    }
+
+    @Test
+    void staysCloseToFourCharactersPerTokenForEnglish() {
+        String text = "Practise the piano for twenty minutes every evening before dinner, "
+                + "and record one piece each week to hear how it improves.";
+
+        assertThat(TokenEstimator.estimate(text)).isBetween(text.length() / 5, text.length() / 3);
+    }
+}
@@ -0,0 +1,73 @@
+package com.goalsapp.service;
+
+import com.goalsapp.entity.User;
+import com.goalsapp.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.security.Principal;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Counts the statements {@link UserService#currentUser} sends per request.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(UserService.class)
+class UserServiceQueriesTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserRepository userRepo;
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @MockitoBean
+    PasswordEncoder encoder;
+
+    User alice;
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepo.saveAndFlush(new User("alice", "hash"));
+        em.clear();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void principalWithId_resolvesUserWithoutAnyQuery() {
+        AuthenticatedUser principal = AuthenticatedUser.of(alice);
+
+        User user = userService.currentUser(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        assertThat(user.getId()).isEqualTo(alice.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void principalWithNameOnly_costsOneQuery() {
+        Principal principal = () -> "alice";
+
+        assertThat(userService.currentUser(principal).getId()).isEqualTo(alice.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -8,6 +8,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
@@ -91,4 +92,25 @@ class UserServiceTest {
 
         verify(userRepo).findByUsername("missing");
     }
-}
\ No newline at end of file
+
+    @Test
+    void currentUser_withIdInPrincipal_returnsReferenceWithoutLookup() {
+        User reference = new User("alice", "hash");
+        when(userRepo.getReferenceById(7L)).thenReturn(reference);
+        AuthenticatedUser principal = new AuthenticatedUser(7L, "alice", "hash");
+
+        User result = userService.currentUser(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        assertThat(result).isSameAs(reference);
+        verify(userRepo, never()).findByUsername(any());
+    }
+
+    @Test
+    void currentUser_withPlainPrincipal_looksUpByName() {
+        User u = new User("alice", "hash");
+        when(userRepo.findByUsername("alice")).thenReturn(Optional.of(u));
+
+        assertThat(userService.currentUser(() -> "alice")).isSameAs(u);
+    }
+}